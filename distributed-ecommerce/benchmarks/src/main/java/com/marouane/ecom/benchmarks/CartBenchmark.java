@@ -0,0 +1,77 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.cart.Cart;
+import com.marouane.ecom.cart.CartItem;
+import com.marouane.ecom.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int items;
+
+    private Cart cart;
+    private Product lastProduct;
+    private Product newProduct;
+
+    @Setup
+    public void setUp() {
+        cart = Cart.builder().build();
+        for (int i = 0; i < items; i++) {
+            lastProduct = product(i);
+            cart.addItem(item(lastProduct));
+        }
+        newProduct = product(items);
+    }
+
+    // Worst case for the linear scan: the product is already in the cart, at the very end
+    @Benchmark
+    public int addExistingProduct() {
+        cart.addItem(item(lastProduct));
+        return cart.getItems().size();
+    }
+
+    @Benchmark
+    public int addNewProduct() {
+        cart.addItem(item(newProduct));
+        List<CartItem> cartItems = cart.getItems();
+        cartItems.remove(cartItems.size() - 1);
+        return cartItems.size();
+    }
+
+    private static Product product(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(BigDecimal.valueOf(10 + id % 90, 2))
+                .build();
+    }
+
+    private static CartItem item(Product product) {
+        return CartItem.builder()
+                .product(product)
+                .quantity(1)
+                .unitPrice(product.getPrice())
+                .build();
+    }
+}
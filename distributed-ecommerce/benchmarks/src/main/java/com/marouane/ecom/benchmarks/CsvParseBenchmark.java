@@ -0,0 +1,61 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.parser.CsvStockUpdateParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvParseBenchmark {
+
+    private static final String[] CATEGORIES = {"ELECTRONICS", "BOOKS", "GARDEN", "TOYS"};
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private final CsvStockUpdateParserService parserService = new CsvStockUpdateParserService();
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("product_name,quantity,category,description,status,price\n");
+        for (int i = 0; i < rows; i++) {
+            builder.append("Product ").append(i % (rows / 4 + 1)).append(',')
+                    .append(1 + i % 50).append(',')
+                    .append(CATEGORIES[i % CATEGORIES.length]).append(',')
+                    .append("Synthetic product number ").append(i).append(',')
+                    .append("ACTIVE,")
+                    .append(5 + i % 500).append('.').append(i % 100 < 10 ? "0" : "").append(i % 100)
+                    .append('\n');
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Streaming path used by the import, in import-sized chunks
+    @Benchmark
+    public int parseInChunks() throws IOException {
+        AtomicInteger parsed = new AtomicInteger();
+        parserService.parseInChunks(new ByteArrayInputStream(csv), 1000,
+                chunk -> parsed.addAndGet(chunk.records().size()));
+        return parsed.get();
+    }
+}
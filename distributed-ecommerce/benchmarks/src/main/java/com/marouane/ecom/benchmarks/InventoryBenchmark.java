@@ -0,0 +1,50 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.inventory.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InventoryBenchmark {
+
+    private Inventory inventory;
+
+    @Setup
+    public void setUp() {
+        inventory = Inventory.builder()
+                .totalQuantity(Integer.MAX_VALUE / 2)
+                .totalReserved(0)
+                .build();
+    }
+
+    // Each cycle leaves the counters where it found them
+    @Benchmark
+    public int reserveThenRelease() {
+        inventory.reserveStock(3);
+        inventory.releaseStock(3);
+        return inventory.getTotalReserved();
+    }
+
+    @Benchmark
+    public int reserveThenFulfill() {
+        inventory.reserveStock(1);
+        inventory.fulfillReservedStock(1);
+        inventory.addStock(1);
+        return inventory.getTotalQuantity();
+    }
+}
@@ -0,0 +1,88 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.config.CacheConfig;
+import com.marouane.ecom.security.JwtService;
+import com.marouane.ecom.user.Role;
+import com.marouane.ecom.user.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtBenchmark {
+
+    private static final String SECRET_KEY =
+            "fbc58140a1d155839547446eebab796dc97e89acf825fb83f944c20801226c3e09ec98116567c78d8dcc8d333340f90d6313e321715c3073d09647633afa464174e58a2d1db43f076abac8408fe125581e9df4c45bd80825effaafe4401c123a5fdb9b3ba03fea4c248c43b191105d1fd9ebb3c9db3d1f97d2856fb2e836250ff2f73342a95f9949e69c83ec86a29f0b7ce661f78207f02ccd5c2b95686fc8684371a46bd065f982477bb772c44ce9954a35d2400606935c0ed9d32fbd34143f949ffe17264fcbe83430a5980cb22956b7640643ddef14142c5056580e9e81cf14f6c7ec6b01b800f227e13a0a908d83ed71c07a6594b3a007acca712f99cdf8";
+
+    private JwtService uncachedJwtService;
+    private JwtService cachedJwtService;
+    private User user;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncachedJwtService = jwtService(new NoOpCacheManager());
+        cachedJwtService = jwtService(new ConcurrentMapCacheManager(CacheConfig.JWT_TOKENS));
+
+        user = User.builder()
+                .id(42)
+                .firstName("Bench")
+                .lastName("Mark")
+                .email("bench@example.com")
+                .roles(List.of(Role.builder().name("USER").build()))
+                .build();
+        claims = new HashMap<>();
+        claims.put("fullname", user.getFullName());
+        claims.put("uid", user.getId());
+        token = uncachedJwtService.generateToken(claims, user);
+        cachedJwtService.verify(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncachedJwtService.generateToken(new HashMap<>(claims), user);
+    }
+
+    // Signature check and claim parsing, what every request paid before verified tokens were cached
+    @Benchmark
+    public Claims verifyUncached() {
+        return uncachedJwtService.verify(token);
+    }
+
+    // Repeat request: SHA-256 of the token plus one cache lookup
+    @Benchmark
+    public Claims verifyCached() {
+        return cachedJwtService.verify(token);
+    }
+
+    private static JwtService jwtService(CacheManager cacheManager) {
+        JwtService jwtService = new JwtService(cacheManager);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", TimeUnit.DAYS.toMillis(1));
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+}
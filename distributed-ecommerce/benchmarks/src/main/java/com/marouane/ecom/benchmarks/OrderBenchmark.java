@@ -0,0 +1,73 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.order.Order;
+import com.marouane.ecom.order.OrderDto;
+import com.marouane.ecom.order.OrderItem;
+import com.marouane.ecom.order.OrderStatus;
+import com.marouane.ecom.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int items;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = Order.builder()
+                .id(UUID.randomUUID())
+                .status(OrderStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+        for (int i = 0; i < items; i++) {
+            Product product = Product.builder()
+                    .id((long) i)
+                    .name("Product " + i)
+                    .price(BigDecimal.valueOf(1999 + i, 2))
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .id(UUID.randomUUID())
+                    .order(order)
+                    .product(product)
+                    .quantity(1 + i % 3)
+                    .unitPrice(product.getPrice())
+                    .build());
+        }
+        order.calculateTotalAmount();
+    }
+
+    // Paid once per order at creation; reads use the stored total
+    @Benchmark
+    public BigDecimal calculateTotalAmount() {
+        order.calculateTotalAmount();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public OrderDto toDto() {
+        return OrderDto.fromEntity(order);
+    }
+}
@@ -0,0 +1,45 @@
+package com.marouane.ecom.benchmarks;
+
+import com.marouane.ecom.common.CheckoutMetrics;
+import com.marouane.ecom.payment.PaymentResult;
+import com.marouane.ecom.payment.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentBenchmark {
+
+    private final PaymentService paymentService = new PaymentService(
+            new CheckoutMetrics(new SimpleMeterRegistry(), null));
+
+    @Param({"4242424242424242", "4000000000000001"})
+    private String cardNumber;
+
+    @Benchmark
+    public boolean isCardValid() {
+        return paymentService.isCardValid(cardNumber);
+    }
+
+    // The mock charge as checkout calls it, stage timer included
+    @Benchmark
+    public PaymentResult process() {
+        return paymentService.process(BigDecimal.TEN, cardNumber);
+    }
+}
@@ -1,38 +1,74 @@
 package com.marouane.ecom.auth;
 
 
+import com.marouane.ecom.exception.AuthenticationThrottledException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthenticationController {
 
+    // A full hashing queue drains in well under a second
+    private static final Duration HASHING_RETRY_AFTER = Duration.ofSeconds(1);
+
     private final AuthenticationService service;
+    private final LoginRateLimiter loginRateLimiter;
 
-    public AuthenticationController( AuthenticationService service) {
+    public AuthenticationController( AuthenticationService service, LoginRateLimiter loginRateLimiter) {
         this.service = service;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.ACCEPTED)
     public ResponseEntity<?> register(
-            @RequestBody @Valid RegistrationRequest request
+            @RequestBody @Valid RegistrationRequest request,
+            HttpServletRequest httpRequest
     ) {
-        service.register(request);
-        return ResponseEntity.accepted().build();
+        try {
+            loginRateLimiter.acquireForIp(httpRequest.getRemoteAddr());
+            service.register(request);
+            return ResponseEntity.accepted().build();
+        } catch (AuthenticationThrottledException e) {
+            return tooManyRequests(e.getRetryAfter());
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests(HASHING_RETRY_AFTER);
+        }
     }
 
 
 
     @PostMapping("/authenticate")
     public ResponseEntity<AuthenticationResponse> authenticate(
-            @Valid @RequestBody AuthenticationRequest request
+            @Valid @RequestBody AuthenticationRequest request,
+            HttpServletRequest httpRequest
     ) {
-        return ResponseEntity.ok(service.authenticate(request));
+        try {
+            loginRateLimiter.acquireForIp(httpRequest.getRemoteAddr());
+            loginRateLimiter.acquireForAccount(request.getEmail());
+            return ResponseEntity.ok(service.authenticate(request));
+        } catch (AuthenticationThrottledException e) {
+            return tooManyRequests(e.getRetryAfter());
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests(HASHING_RETRY_AFTER);
+        }
+    }
+
+    // Retry-After is in whole seconds; rounding down would send clients back before a token is there.
+    private static <T> ResponseEntity<T> tooManyRequests(Duration retryAfter) {
+        long seconds = retryAfter.toSeconds() + (retryAfter.toNanosPart() > 0 ? 1 : 0);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds)))
+                .build();
     }
 
 
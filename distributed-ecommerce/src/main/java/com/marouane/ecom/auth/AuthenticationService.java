@@ -68,6 +68,7 @@ public class AuthenticationService {
         var user = (User)auth.getPrincipal();
 
         claims.put("fullname", user.getFullName());
+        claims.put("uid", user.getId());
         var jwtToken = jwtService.generateToken(claims, user);
 
         return AuthenticationResponse.builder()
@@ -0,0 +1,100 @@
+package com.marouane.ecom.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marouane.ecom.exception.AuthenticationThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Node-local token buckets for authentication requests, one per client IP and one per account.
+ * Buckets of idle keys are dropped, which is the same as a full bucket.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final Cache<String, TokenBucket> accountBuckets;
+    private final Counter ipThrottled;
+    private final Counter accountThrottled;
+
+    @Value("${application.security.login-rate.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${application.security.login-rate.ip.refill-per-minute:60}")
+    private int ipRefillPerMinute;
+
+    @Value("${application.security.login-rate.account.capacity:5}")
+    private int accountCapacity;
+
+    @Value("${application.security.login-rate.account.refill-per-minute:5}")
+    private int accountRefillPerMinute;
+
+    public LoginRateLimiter(@Value("${application.security.login-rate.max-tracked-keys:100000}") long maxTrackedKeys,
+                            MeterRegistry meterRegistry) {
+        this.ipBuckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.accountBuckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.ipThrottled = meterRegistry.counter("auth.throttled", "scope", "ip");
+        this.accountThrottled = meterRegistry.counter("auth.throttled", "scope", "account");
+    }
+
+
+    public void acquireForIp(String ip) {
+        TokenBucket bucket = ipBuckets.get(ip, key -> new TokenBucket(ipCapacity, ipRefillPerMinute));
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos > 0) {
+            ipThrottled.increment();
+            throw new AuthenticationThrottledException(
+                    "Too many authentication attempts from " + ip, Duration.ofNanos(waitNanos));
+        }
+    }
+
+    public void acquireForAccount(String email) {
+        TokenBucket bucket = accountBuckets.get(email.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(accountCapacity, accountRefillPerMinute));
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos > 0) {
+            accountThrottled.increment();
+            throw new AuthenticationThrottledException(
+                    "Too many authentication attempts for this account", Duration.ofNanos(waitNanos));
+        }
+    }
+
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) Duration.ofMinutes(1).toNanos();
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        // 0 when a token was taken, otherwise the time until the next one is available.
+        private synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+            }
+            tokens -= 1;
+            return 0;
+        }
+    }
+}
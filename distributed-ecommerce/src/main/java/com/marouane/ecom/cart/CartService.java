@@ -8,7 +8,8 @@ import com.marouane.ecom.inventory.InventoryService;
 import com.marouane.ecom.product.Product;
 import com.marouane.ecom.product.ProductRepository;
 
-import com.marouane.ecom.user.User;
+import com.marouane.ecom.security.AuthenticatedUser;
+import com.marouane.ecom.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -25,17 +26,19 @@ public class CartService {
     private final ProductRepository productRepository;
     private final InventoryService inventoryService;
     private final CartMapper cartMapper;
+    private final UserRepository userRepository;
 
 
     public Cart CreateOrGetCart(Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = ((AuthenticatedUser) connectedUser.getPrincipal());
 
-        return cartRepository.findByUser_Id(user.getId())
+        return cartRepository.findByUser_Id(user.id())
                 .orElseGet(() -> createNewCart(user));
     }
 
-    private Cart createNewCart(User user) {
-        Cart cart = Cart.builder().user(user).build();
+    private Cart createNewCart(AuthenticatedUser user) {
+        // Only the foreign key is needed, and Cart never serializes its user
+        Cart cart = Cart.builder().user(userRepository.getReferenceById(user.id())).build();
         return cartRepository.save(cart);
     }
 
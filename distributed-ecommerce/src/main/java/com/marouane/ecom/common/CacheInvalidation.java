@@ -0,0 +1,14 @@
+package com.marouane.ecom.common;
+
+// Keys travel as text so the same message works for every cache and over the wire; a null key
+// drops every entry of the cache.
+public record CacheInvalidation(String cache, String key) {
+
+    public static CacheInvalidation of(String cache, Object key) {
+        return new CacheInvalidation(cache, String.valueOf(key));
+    }
+
+    public static CacheInvalidation all(String cache) {
+        return new CacheInvalidation(cache, null);
+    }
+}
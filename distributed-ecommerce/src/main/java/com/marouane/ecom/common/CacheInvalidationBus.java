@@ -0,0 +1,15 @@
+package com.marouane.ecom.common;
+
+import java.util.Collection;
+
+/**
+ * Delivers cache invalidations to every {@link CacheInvalidationListener}. Writers publish from
+ * inside their transaction and listeners on this node are called once it commits (right away when
+ * there is no transaction); implementations decide whether other nodes hear about it too.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(CacheInvalidation invalidation);
+
+    void publishAll(Collection<CacheInvalidation> invalidations);
+}
@@ -0,0 +1,6 @@
+package com.marouane.ecom.common;
+
+public interface CacheInvalidationListener {
+
+    void onInvalidation(CacheInvalidation invalidation);
+}
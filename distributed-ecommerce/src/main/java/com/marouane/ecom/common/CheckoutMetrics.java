@@ -0,0 +1,108 @@
+package com.marouane.ecom.common;
+
+import com.marouane.ecom.inventory.InventoryReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Latency of each checkout stage ({@code checkout.stage}), time spent acquiring inventory row locks
+ * ({@code inventory.lock.wait}), failures per stage and exception ({@code checkout.errors}) and the
+ * number of outstanding reservations ({@code inventory.reservations.active}).
+ * <p>
+ * Timers keep an HdrHistogram-backed p50/p99/p999 in process and also publish histogram buckets,
+ * so percentiles can be aggregated across nodes by the metrics backend.
+ */
+@Component
+public class CheckoutMetrics {
+
+    public enum Stage {
+        AUTHENTICATION("authentication"),
+        COMPLETE_ORDER("complete-order"),
+        CREATE_ORDER("create-order"),
+        RESERVE("reserve"),
+        PAYMENT("payment");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum LockQuery {
+        SINGLE("findByProductIdWithLock"),
+        BATCH("findAllByProductIdInWithLock");
+
+        private final String tag;
+
+        LockQuery(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final InventoryReservationRepository reservationRepository;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<LockQuery, Timer> lockWaitTimers = new EnumMap<>(LockQuery.class);
+    private final AtomicLong activeReservations = new AtomicLong();
+
+    public CheckoutMetrics(MeterRegistry meterRegistry, InventoryReservationRepository reservationRepository) {
+        this.meterRegistry = meterRegistry;
+        this.reservationRepository = reservationRepository;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("checkout.stage")
+                    .tag("stage", stage.tag)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (LockQuery query : LockQuery.values()) {
+            lockWaitTimers.put(query, Timer.builder("inventory.lock.wait")
+                    .tag("query", query.tag)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry));
+        }
+        meterRegistry.gauge("inventory.reservations.active", activeReservations);
+    }
+
+
+    public <T> T record(Stage stage, Supplier<T> action) {
+        try {
+            return stageTimers.get(stage).record(action);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("checkout.errors",
+                    "stage", stage.tag,
+                    "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        }
+    }
+
+    public void record(Stage stage, Runnable action) {
+        record(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // The locking read blocks until the row lock is granted, so its duration is the lock wait plus one round trip.
+    public <T> T recordLockWait(LockQuery query, Supplier<T> lockingRead) {
+        return lockWaitTimers.get(query).record(lockingRead);
+    }
+
+    // A count per scrape would put the query on the scrape path; a periodic refresh keeps the gauge free to read.
+    @Scheduled(fixedDelayString = "${application.metrics.active-reservations.refresh-ms:10000}")
+    public void refreshActiveReservations() {
+        activeReservations.set(reservationRepository.count());
+    }
+}
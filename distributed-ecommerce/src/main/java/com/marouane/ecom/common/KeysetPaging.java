@@ -0,0 +1,143 @@
+package com.marouane.ecom.common;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cursor (keyset) paging on top of {@link JpaSpecificationExecutor#findBy}. Pages are fetched with
+ * {@code WHERE (sort keys, id) > (last seen)} instead of OFFSET, and no count query is issued, so the
+ * cost of a page does not depend on its depth. Totals are reported as -1 in this mode.
+ * <p>
+ * The cursor is an opaque base64url token holding the last row's sort keys with their types, plus a
+ * fingerprint of the sort it was issued for; using it with a different sort is rejected.
+ */
+public final class KeysetPaging {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetPaging() {
+    }
+
+
+    public static <T, R> PageResponse<R> scroll(
+            JpaSpecificationExecutor<T> repository,
+            Specification<T> spec,
+            Sort sort,
+            int size,
+            String cursor,
+            Function<List<T>, List<R>> mapper) {
+        boolean first = cursor == null || cursor.isBlank();
+        ScrollPosition position = first ? ScrollPosition.keyset() : decode(cursor, sort);
+
+        Window<T> window = repository.findBy(spec, query -> query.sortBy(sort).limit(size).scroll(position));
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encode((KeysetScrollPosition) window.positionAt(window.size() - 1), sort)
+                : null;
+
+        return PageResponse.<R>builder()
+                .content(mapper.apply(window.getContent()))
+                .number(-1)
+                .size(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .first(first)
+                .last(nextCursor == null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+
+    static String encode(KeysetScrollPosition position, Sort sort) {
+        List<String> parts = new ArrayList<>();
+        parts.add(Integer.toHexString(sort.toString().hashCode()));
+        position.getKeys().forEach((key, value) -> parts.add(key + ":" + typeOf(value) + ":" + text(value)));
+        return ENCODER.encodeToString(String.join(",", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetScrollPosition decode(String cursor, Sort sort) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (!parts[0].equals(Integer.toHexString(sort.toString().hashCode()))) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] entry = parts[i].split(":", 3);
+                keys.put(entry[0], value(entry[1], entry[2]));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String typeOf(Object value) {
+        return switch (value) {
+            case null -> "n";
+            case String s -> "s";
+            case Long l -> "l";
+            case Integer i -> "i";
+            case LocalDateTime t -> "t";
+            case UUID u -> "u";
+            case BigDecimal d -> "d";
+            case Boolean b -> "b";
+            case Enum<?> e -> "e" + e.getDeclaringClass().getName();
+            default -> throw new IllegalArgumentException("Unsupported cursor key type: " + value.getClass().getName());
+        };
+    }
+
+    private static String text(Object value) {
+        String text = value instanceof Enum<?> e ? e.name() : String.valueOf(value);
+        return ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object value(String type, String encoded) {
+        String text = new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
+        return switch (type.charAt(0)) {
+            case 'n' -> null;
+            case 's' -> text;
+            case 'l' -> Long.valueOf(text);
+            case 'i' -> Integer.valueOf(text);
+            case 't' -> LocalDateTime.parse(text);
+            case 'u' -> UUID.fromString(text);
+            case 'd' -> new BigDecimal(text);
+            case 'b' -> Boolean.valueOf(text);
+            case 'e' -> enumValue(type.substring(1), text);
+            default -> throw new IllegalArgumentException("Unsupported cursor key type: " + type);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(String className, String name) {
+        if (!className.startsWith("com.marouane.ecom.")) {
+            throw new IllegalArgumentException("Unsupported cursor key type: " + className);
+        }
+        try {
+            Class<?> type = Class.forName(className);
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException("Unsupported cursor key type: " + className);
+            }
+            return Enum.valueOf((Class) type, name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unsupported cursor key type: " + className, e);
+        }
+    }
+}
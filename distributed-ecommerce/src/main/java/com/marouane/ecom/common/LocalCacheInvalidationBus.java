@@ -0,0 +1,46 @@
+package com.marouane.ecom.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<CacheInvalidationListener> listeners;
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        publishAll(List.of(invalidation));
+    }
+
+    @Override
+    public void publishAll(Collection<CacheInvalidation> invalidations) {
+        List<CacheInvalidation> published = List.copyOf(invalidations);
+        afterCommit(() -> published.forEach(this::deliver));
+    }
+
+    private void deliver(CacheInvalidation invalidation) {
+        listeners.forEach(listener -> listener.onInvalidation(invalidation));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
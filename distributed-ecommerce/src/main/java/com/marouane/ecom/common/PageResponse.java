@@ -18,4 +18,10 @@ public class PageResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    private String nextCursor;
+
+    public PageResponse(List<T> content, int number, int size, int totalElements, int totalPages,
+                        boolean first, boolean last) {
+        this(content, number, size, totalElements, totalPages, first, last, null);
+    }
 }
@@ -0,0 +1,226 @@
+package com.marouane.ecom.common;
+
+import com.marouane.ecom.config.CacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache invalidation shared by every node on the same database, over Postgres {@code LISTEN/NOTIFY}.
+ * <p>
+ * Publishing issues {@code pg_notify} inside the writer's transaction, so other nodes only hear about
+ * committed writes; this node delivers its own invalidations after commit and ignores their echo.
+ * Each node listens on a dedicated connection outside the pool. Notifications sent while that
+ * connection is down are lost, so after reconnecting the node drops every shared cache.
+ */
+@Component
+@ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "postgres")
+public class PostgresCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final String CHANNEL = "cache_invalidation";
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<CacheInvalidationListener> listeners;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private final Timer deliveryLatency;
+    private final Counter received;
+    private final Counter resyncs;
+    private final Counter listenerFailures;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${application.cache.invalidation.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${application.cache.invalidation.reconnect-delay-ms:1000}")
+    private long reconnectDelayMs;
+
+    public PostgresCacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                        List<CacheInvalidationListener> listeners,
+                                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listeners = listeners;
+        // Measured from publish, so time the writer's transaction stays open after publishing counts too
+        this.deliveryLatency = Timer.builder("cache.invalidation.delivery")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.received = meterRegistry.counter("cache.invalidation.received");
+        this.resyncs = meterRegistry.counter("cache.invalidation.resyncs");
+        this.listenerFailures = meterRegistry.counter("cache.invalidation.listener.failures");
+        meterRegistry.gauge("cache.invalidation.connected", connected, state -> state.get() ? 1 : 0);
+    }
+
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        publishAll(List.of(invalidation));
+    }
+
+    @Override
+    public void publishAll(Collection<CacheInvalidation> invalidations) {
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        List<CacheInvalidation> published = List.copyOf(invalidations);
+        long sentAt = System.currentTimeMillis();
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(NOTIFY_SQL)) {
+                ps.setString(1, CHANNEL);
+                ps.setArray(2, connection.createArrayOf("text",
+                        published.stream().map(invalidation -> encode(invalidation, sentAt)).toArray()));
+                ps.execute();
+            }
+            return null;
+        });
+
+        afterCommit(() -> published.forEach(this::deliver));
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.join(pollTimeoutMs * 2L);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                connected.set(true);
+                // Already listening again, so nothing published from here on is missed by the resync
+                if (reconnecting) {
+                    resync();
+                }
+                reconnecting = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                connected.set(false);
+                pause();
+            }
+        }
+        connected.set(false);
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        received.increment();
+        deliveryLatency.record(Math.max(0, System.currentTimeMillis() - sentAt), TimeUnit.MILLISECONDS);
+        deliver(new CacheInvalidation(parts[2], parts[3].isEmpty() ? null : parts[3]));
+    }
+
+    private void resync() {
+        resyncs.increment();
+        CacheConfig.SHARED_CACHES.forEach(cache -> deliver(CacheInvalidation.all(cache)));
+    }
+
+    private void deliver(CacheInvalidation invalidation) {
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidation(invalidation);
+            } catch (RuntimeException e) {
+                listenerFailures.increment();
+            }
+        }
+    }
+
+    // nodeId|sentAtMillis|cache|key, with an empty key for "all entries"
+    private String encode(CacheInvalidation invalidation, long sentAt) {
+        return String.join("|",
+                nodeId,
+                String.valueOf(sentAt),
+                invalidation.cache(),
+                invalidation.key() == null ? "" : invalidation.key());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,24 +1,69 @@
 package com.marouane.ecom.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class AsyncConfig {
 
+    // Import pools keep their sizes and queue limits either way; only the threads behind them change.
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
-    public Executor bulkUpdateExecutor() {
-        return new ThreadPoolExecutor(
-                10,
-                20,
-                30, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(500),
-                new ThreadPoolExecutor.CallerRunsPolicy()
-        );
+    public ThreadPoolTaskExecutor bulkUpdateExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(20);
+        executor.setQueueCapacity(500);
+        executor.setKeepAliveSeconds(30);
+        executor.setThreadNamePrefix("bulk-update-");
+        useVirtualThreadsIfEnabled(executor, "bulk-update-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor bulkImportJobExecutor(
+            @Value("${application.inventory.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${application.inventory.import.max-queued-jobs:10}") int maxQueuedJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setQueueCapacity(maxQueuedJobs);
+        executor.setThreadNamePrefix("bulk-import-job-");
+        useVirtualThreadsIfEnabled(executor, "bulk-import-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // BCrypt is CPU-bound: more threads than cores only adds queueing inside the pool.
+    // A full queue rejects right away instead of holding request threads.
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${application.security.password-hashing.threads:0}") int threads,
+            @Value("${application.security.password-hashing.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    private void useVirtualThreadsIfEnabled(ThreadPoolTaskExecutor executor, String threadNamePrefix) {
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
     }
 }
@@ -0,0 +1,66 @@
+package com.marouane.ecom.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_QUERIES = "productQueries";
+    public static final String INVENTORY = "inventory";
+    public static final String USERS = "users";
+    public static final String JWT_TOKENS = "jwtTokens";
+
+    // Everything a node may hold locally that other nodes' writes can make stale
+    public static final List<String> SHARED_CACHES = List.of(PRODUCTS, PRODUCT_QUERIES, INVENTORY, USERS);
+
+    // Caches are registered up front so the actuator binds their hit/miss metrics at startup.
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${application.cache.products.spec:maximumSize=10000,expireAfterWrite=10m}") String productsSpec,
+            @Value("${application.cache.product-queries.spec:maximumSize=1000,expireAfterWrite=30s}") String queriesSpec,
+            @Value("${application.cache.users.spec:maximumSize=10000,expireAfterWrite=30s}") String usersSpec,
+            @Value("${application.cache.jwt-tokens.max-entries:100000}") long jwtTokensMaxEntries) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.from(productsSpec).recordStats().build());
+        cacheManager.registerCustomCache(PRODUCT_QUERIES, Caffeine.from(queriesSpec).recordStats().build());
+        cacheManager.registerCustomCache(USERS, Caffeine.from(usersSpec).recordStats().build());
+        cacheManager.registerCustomCache(JWT_TOKENS, Caffeine.newBuilder()
+                .maximumSize(jwtTokensMaxEntries)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    // Verified claims stay cached exactly until the token's own exp, never past it.
+    private static final class UntilTokenExpires implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            Instant expiresAt = ((Claims) value).getExpiration().toInstant();
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.marouane.ecom.config;
+
+import com.marouane.ecom.profiling.ProfilingDataSource;
+import com.marouane.ecom.profiling.QueryProfileEndpoint;
+import com.marouane.ecom.profiling.QueryProfilingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "application.profiling.queries.enabled", havingValue = "true")
+public class QueryProfilingConfig {
+
+    // Static so the post-processor is registered before the DataSource it wraps is created.
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryProfilingFilter queryProfilingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${application.profiling.queries.statement-budget:25}") int statementBudget,
+            @Value("${application.profiling.queries.violations-kept:100}") int violationsKept) {
+        return new QueryProfilingFilter(meterRegistry, statementBudget, violationsKept);
+    }
+
+    // Ahead of Spring Security, so the statements the JWT filter runs are charged to the request too.
+    @Bean
+    public FilterRegistrationBean<QueryProfilingFilter> queryProfilingFilterRegistration(QueryProfilingFilter filter) {
+        FilterRegistrationBean<QueryProfilingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public QueryProfileEndpoint queryProfileEndpoint(QueryProfilingFilter queryProfilingFilter) {
+        return new QueryProfileEndpoint(queryProfilingFilter);
+    }
+}
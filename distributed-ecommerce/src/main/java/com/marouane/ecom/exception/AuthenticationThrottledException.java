@@ -0,0 +1,16 @@
+package com.marouane.ecom.exception;
+
+import java.time.Duration;
+
+public class AuthenticationThrottledException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public AuthenticationThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -68,5 +68,20 @@ export const bulkUpdateStock = async (file) => {
     return response.data;
 };
 
+export const fetchBulkUpdateJob = async (jobId) => {
+    const response = await axiosInstance.get(`/inventory/bulk-update/${jobId}`);
+    return response.data;
+};
+
+export const waitForBulkUpdateJob = async (jobId, intervalMs = 1000) => {
+    for (;;) {
+        const job = await fetchBulkUpdateJob(jobId);
+        if (job.status === 'COMPLETED' || job.status === 'FAILED') {
+            return job;
+        }
+        await new Promise(resolve => setTimeout(resolve, intervalMs));
+    }
+};
+
 
 
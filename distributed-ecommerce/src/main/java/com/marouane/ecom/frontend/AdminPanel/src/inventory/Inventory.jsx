@@ -2,7 +2,8 @@ import React, { useState, useEffect } from 'react';
 import './inventory.css';
 import {
     fetchInventoryCounts,
-    fetchAllInventory, deleteProductInventory, updateInventoryQuantity, createInventory, bulkUpdateStock
+    fetchAllInventory, deleteProductInventory, updateInventoryQuantity, createInventory, bulkUpdateStock,
+    waitForBulkUpdateJob
 } from '../api/inventoryApi';
 import {getProductsWithoutInventory} from "../api/productApi.js";
 import {showErrorToast, showSuccessToast} from "../utils/toast.jsx";
@@ -214,9 +215,16 @@ const Inventory = () => {
 
     const handleBulkUpload = async (file) => {
         try {
-            const result = await bulkUpdateStock(file);
-
-            showSuccessToast(`Successfully processed ${result.processedCount} records`);
+            const job = await bulkUpdateStock(file);
+            const result = await waitForBulkUpdateJob(job.jobId);
+
+            if (result.status === 'FAILED') {
+                showErrorToast(`Upload failed: ${result.error}`);
+            } else if (result.failedRows > 0) {
+                showErrorToast(`Processed ${result.processedRows} records, ${result.failedRows} failed`);
+            } else {
+                showSuccessToast(`Successfully processed ${result.processedRows} records`);
+            }
             loadInventories();
         } catch (error) {
             console.error('Bulk upload failed:', error);
@@ -0,0 +1,28 @@
+package com.marouane.ecom.inventory;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkImportResult {
+    private int processedCount;
+    private int failedCount;
+    private int coalescedRows;
+    private int chunkCount;
+    private List<ChunkImportResult> chunks;
+
+    public static BulkImportResult of(List<ChunkImportResult> chunks) {
+        return BulkImportResult.builder()
+                .processedCount(chunks.stream().mapToInt(ChunkImportResult::getSucceeded).sum())
+                .failedCount(chunks.stream().mapToInt(ChunkImportResult::getFailed).sum())
+                .coalescedRows(chunks.stream().mapToInt(ChunkImportResult::getCoalescedRows).sum())
+                .chunkCount(chunks.size())
+                .chunks(chunks)
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.marouane.ecom.inventory;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChunkImportResult {
+    private int index;
+    private int rows;
+    private int succeeded;
+    private int failed;
+    private int coalescedRows;
+    private String error;
+}
@@ -0,0 +1,69 @@
+package com.marouane.ecom.inventory;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+public class ImportJob {
+
+    private final UUID id = UUID.randomUUID();
+    private final long totalBytes;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicInteger processedRows = new AtomicInteger();
+    private final AtomicInteger failedRows = new AtomicInteger();
+    private final AtomicInteger coalescedRows = new AtomicInteger();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final List<ChunkImportResult> failedChunks = new CopyOnWriteArrayList<>();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public ImportJob(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = ImportJobStatus.RUNNING;
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void chunkCompleted(ChunkImportResult result) {
+        processedRows.addAndGet(result.getSucceeded());
+        failedRows.addAndGet(result.getFailed());
+        coalescedRows.addAndGet(result.getCoalescedRows());
+        completedChunks.incrementAndGet();
+        if (result.getError() != null) {
+            failedChunks.add(result);
+        }
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = ImportJobStatus.COMPLETED;
+    }
+
+    public void fail(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = ImportJobStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == ImportJobStatus.COMPLETED || status == ImportJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,44 @@
+package com.marouane.ecom.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local registry of bulk import jobs. Jobs live only on the node that accepted the upload, so
+ * progress polling needs to reach that node; finished jobs are dropped after the retention period.
+ */
+@Component
+public class ImportJobRegistry {
+
+    private final Map<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${application.inventory.import.job-retention-minutes:60}")
+    private long retentionMinutes;
+
+
+    public ImportJob register(ImportJob job) {
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    public Optional<ImportJob> find(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public void remove(UUID jobId) {
+        jobs.remove(jobId);
+    }
+
+    @Scheduled(fixedRate = 300_000)
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
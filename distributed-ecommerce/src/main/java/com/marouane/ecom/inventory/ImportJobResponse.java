@@ -0,0 +1,74 @@
+package com.marouane.ecom.inventory;
+
+import lombok.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportJobResponse {
+    private UUID jobId;
+    private ImportJobStatus status;
+    private long totalBytes;
+    private long bytesRead;
+    private double percentComplete;
+    private int processedRows;
+    private int failedRows;
+    private int coalescedRows;
+    private int completedChunks;
+    private double rowsPerSecond;
+    private Long etaSeconds;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private List<ChunkImportResult> failedChunks;
+
+    // Progress is measured in bytes consumed from the upload, since the row count is unknown until
+    // the whole file has been read. The ETA extrapolates the elapsed time over the bytes left.
+    public static ImportJobResponse from(ImportJob job) {
+        long bytesRead = Math.min(job.getBytesRead().get(), job.getTotalBytes());
+        double fraction = job.getTotalBytes() == 0 ? 1.0 : (double) bytesRead / job.getTotalBytes();
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            fraction = 1.0;
+        }
+
+        double rowsPerSecond = 0;
+        Long etaSeconds = null;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMillis = Math.max(Duration.between(job.getStartedAt(), end).toMillis(), 1);
+            rowsPerSecond = job.getProcessedRows().get() * 1000.0 / elapsedMillis;
+            if (job.getStatus() == ImportJobStatus.RUNNING && fraction > 0) {
+                etaSeconds = Math.round(elapsedMillis * (1 - fraction) / fraction / 1000);
+            } else if (job.isFinished()) {
+                etaSeconds = 0L;
+            }
+        }
+
+        return ImportJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .totalBytes(job.getTotalBytes())
+                .bytesRead(bytesRead)
+                .percentComplete(Math.round(fraction * 1000) / 10.0)
+                .processedRows(job.getProcessedRows().get())
+                .failedRows(job.getFailedRows().get())
+                .coalescedRows(job.getCoalescedRows().get())
+                .completedChunks(job.getCompletedChunks().get())
+                .rowsPerSecond(Math.round(rowsPerSecond * 10) / 10.0)
+                .etaSeconds(etaSeconds)
+                .submittedAt(job.getSubmittedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .failedChunks(List.copyOf(job.getFailedChunks()))
+                .build();
+    }
+}
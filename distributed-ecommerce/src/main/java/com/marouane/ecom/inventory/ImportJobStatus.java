@@ -0,0 +1,8 @@
+package com.marouane.ecom.inventory;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
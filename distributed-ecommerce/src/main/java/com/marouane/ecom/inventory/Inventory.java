@@ -34,6 +34,11 @@ public class Inventory {
     @Column(nullable = false)
     private int totalReserved;
 
+    // Part of totalReserved placed through the manual hold endpoint; it has no reservation rows, so a
+    // rebuild from inventory_reservations has to add it back.
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int totalHeld;
+
     @Version
     @JsonIgnore
     private Long version;
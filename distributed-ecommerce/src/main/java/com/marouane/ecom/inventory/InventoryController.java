@@ -1,8 +1,7 @@
 package com.marouane.ecom.inventory;
 
-import com.marouane.ecom.parser.CsvStockUpdateParserService;
-import com.marouane.ecom.parser.StockUpdateRecord;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +12,8 @@ import com.marouane.ecom.common.PageResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -20,7 +21,8 @@ import java.util.Map;
 public class InventoryController {
 
     private final InventoryService inventoryService;
-    private final CsvStockUpdateParserService csvParser;
+    private final StockImportService stockImportService;
+    private final ImportJobRegistry importJobRegistry;
 
     @PostMapping("/create/{productId}/{quantity}")
     public ResponseEntity<Inventory> createInventory(
@@ -44,11 +46,16 @@ public class InventoryController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String sortDirection,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) String stockLevel
+            @RequestParam(required = false) String stockLevel,
+            @RequestParam(required = false) String cursor
     ) {
-        return ResponseEntity.ok(inventoryService.getAllInventory(
-                page, size, sortBy, sortDirection, search, stockLevel
-        ));
+        try {
+            return ResponseEntity.ok(inventoryService.getAllInventory(
+                    page, size, sortBy, sortDirection, search, stockLevel, cursor
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{productId}/available")
@@ -79,29 +86,31 @@ public class InventoryController {
 
 
     @PostMapping(value = "/bulk-update", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> uploadFile(
+    public ResponseEntity<?> uploadFile(
             @RequestPart("file") MultipartFile file) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("File is empty");
         }
 
         try {
-            List<StockUpdateRecord> updates = csvParser.parse(file);
-            try {
-                inventoryService.bulkUpdateStock(updates);
-                return ResponseEntity.ok().body(
-                        String.format("Successfully processed %d records", updates.size())
-                );
-            } catch (RuntimeException e) {
-                return ResponseEntity.internalServerError()
-                        .body("Partial update completed with errors: " + e.getMessage());
-            }
+            ImportJob job = stockImportService.submit(file);
+            return ResponseEntity.accepted().body(ImportJobResponse.from(job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many imports in progress, try again later");
         } catch (IOException e) {
             return ResponseEntity.internalServerError()
                     .body("Failed to process file: " + e.getMessage());
         }
     }
 
+    @GetMapping("/bulk-update/{jobId}")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable UUID jobId) {
+        return importJobRegistry.find(jobId)
+                .map(job -> ResponseEntity.ok(ImportJobResponse.from(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
 
 
 
@@ -5,6 +5,7 @@ import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,10 +19,22 @@ public interface InventoryRepository extends JpaRepository<Inventory, UUID>, Jpa
     @Query("SELECT i FROM Inventory i WHERE i.product.id = :productId")
     Optional<Inventory> findByProductIdWithLock(@Param("productId") Long productId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "2000"))
+    @Query("SELECT i FROM Inventory i WHERE i.product.id IN :productIds ORDER BY i.product.id")
+    List<Inventory> findAllByProductIdInWithLock(@Param("productIds") Collection<Long> productIds);
+
 
 
     Optional<Inventory> findByProductId(Long productId);
 
+    @Query("""
+    SELECT new com.marouane.ecom.inventory.ProductStock(i.product.id, i.totalQuantity - i.totalReserved)
+    FROM Inventory i
+    WHERE i.product.id IN :productIds
+""")
+    List<ProductStock> findStockByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
 
     @Query("""
     SELECT i FROM Inventory i
@@ -42,4 +55,56 @@ public interface InventoryRepository extends JpaRepository<Inventory, UUID>, Jpa
     @Query("SELECT COUNT(i) FROM Inventory i WHERE (i.totalQuantity - i.totalReserved) >= :quantity")
     long countByAvailableQuantityGreaterThanEqual(int quantity);
 
+
+    @Modifying
+    @Query(value = """
+    UPDATE inventory i
+    SET total_reserved = i.total_held + COALESCE((
+        SELECT SUM(r.quantity) FROM inventory_reservations r WHERE r.product_id = i.product_id
+    ), 0)
+""", nativeQuery = true)
+    int rebuildReservedFromReservations();
+
+
+    @Modifying
+    @Query(value = """
+    UPDATE inventory
+    SET total_held = GREATEST(total_held + :quantity, 0)
+    WHERE product_id = :productId
+""", nativeQuery = true)
+    int adjustHeld(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+
+    @Modifying
+    @Query(value = """
+    UPDATE inventory
+    SET total_reserved = total_reserved + :quantity,
+        updated_at = now()
+    WHERE product_id = :productId
+      AND total_quantity - total_reserved >= :quantity
+""", nativeQuery = true)
+    int reserveIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+
+    @Modifying
+    @Query(value = """
+    UPDATE inventory
+    SET total_reserved = GREATEST(total_reserved - :quantity, 0),
+        updated_at = now()
+    WHERE product_id = :productId
+""", nativeQuery = true)
+    int releaseReserved(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO inventory (id, product_id, total_quantity, total_reserved, version, created_at, updated_at)
+    SELECT gen_random_uuid(), p.id, 0, 0, 0, now(), now()
+    FROM product p
+    WHERE p.id IN :productIds
+    ORDER BY p.id
+    ON CONFLICT (product_id) DO NOTHING
+""", nativeQuery = true)
+    int createMissingForProducts(@Param("productIds") Collection<Long> productIds);
+
 }
@@ -7,7 +7,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "inventory_reservations")
+@Table(name = "inventory_reservations", indexes = @Index(name = "idx_inventory_reservations_expires_at", columnList = "expiresAt"))
 @Getter
 @Setter
 @Builder
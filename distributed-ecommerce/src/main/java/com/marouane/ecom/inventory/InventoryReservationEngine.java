@@ -0,0 +1,342 @@
+package com.marouane.ecom.inventory;
+
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationListener;
+import com.marouane.ecom.config.CacheConfig;
+import com.marouane.ecom.exception.InsufficientStockException;
+import com.marouane.ecom.exception.InventoryNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Node-local admission counters for {@link ReservationMode#IN_MEMORY}.
+ * <p>
+ * Each product keeps its quantity and reserved totals in memory, guarded by one of a fixed set of
+ * striped locks, so reserve/release never wait on the inventory row. Reserved deltas are written back
+ * to {@code inventory.total_reserved} in batches; {@link #rebuildFromReservations()} recomputes the
+ * reserved totals from {@code inventory_reservations} and the manual holds in {@code total_held} after a
+ * crash lost unflushed deltas.
+ * <p>
+ * Every flush holds a read lock on {@code flushLock} until its transaction has completed and settled; the
+ * rebuild takes the write lock, so it waits for flushes in flight and no new one starts under it.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryReservationEngine implements CacheInvalidationListener {
+
+    private static final int STRIPES = 64;
+
+    private static final String FLUSH_SQL = """
+            UPDATE inventory
+            SET total_reserved = GREATEST(total_reserved + ?, 0),
+                version = version + 1,
+                updated_at = now()
+            WHERE product_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = createStripes();
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    @Value("${application.inventory.reservation.mode:LOCKING}")
+    private ReservationMode reservationMode;
+
+    @Value("${application.inventory.reservation.engine.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.inventory.reservation.engine.recover-on-startup:false}")
+    private boolean recoverOnStartup;
+
+
+    public void reserve(Long productId, int quantity) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            StockCounter counter = counterFor(productId);
+            int available = counter.quantity - counter.reserved;
+            if (quantity > available) {
+                throw new InsufficientStockException(
+                        "Available: " + available + ", Requested: " + quantity
+                );
+            }
+            counter.reserved += quantity;
+            counter.pending += quantity;
+        } finally {
+            lock.unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseNow(productId, quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    public void release(Long productId, int quantity) {
+        afterCommit(() -> releaseNow(productId, quantity));
+    }
+
+    // Inventory writes, on this node or any other, are published once they have committed.
+    @Override
+    public void onInvalidation(CacheInvalidation invalidation) {
+        if (!CacheConfig.INVENTORY.equals(invalidation.cache())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            List.copyOf(counters.keySet()).forEach(this::refresh);
+        } else {
+            refresh(Long.valueOf(invalidation.key()));
+        }
+    }
+
+
+    @Scheduled(fixedDelayString = "${application.inventory.reservation.engine.flush-interval-ms:200}")
+    public void flushPending() {
+        if (!counters.isEmpty()) {
+            flush(counters.keySet());
+            counters.forEach((productId, counter) -> {
+                if (counter.resyncDeferred) {
+                    refresh(productId);
+                }
+            });
+        }
+    }
+
+    // When called inside a caller's transaction the flush joins it, and the read lock is only released
+    // once that transaction completes.
+    public void flush(Collection<Long> productIds) {
+        flushLock.readLock().lock();
+        boolean[] settling = {false};
+        try {
+            Map<Long, Integer> drained = drain(productIds);
+            if (drained.isEmpty()) {
+                return;
+            }
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completionStatus) {
+                        try {
+                            settle(drained, completionStatus == STATUS_COMMITTED);
+                        } finally {
+                            flushLock.readLock().unlock();
+                        }
+                    }
+                });
+                settling[0] = true;
+                jdbcTemplate.batchUpdate(
+                        FLUSH_SQL,
+                        new ArrayList<>(drained.entrySet()),
+                        batchSize,
+                        (ps, delta) -> {
+                            ps.setInt(1, delta.getValue());
+                            ps.setLong(2, delta.getKey());
+                        }
+                );
+            });
+        } finally {
+            if (!settling[0]) {
+                flushLock.readLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPending();
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverIfConfigured() {
+        if (reservationMode == ReservationMode.IN_MEMORY && recoverOnStartup) {
+            rebuildFromReservations();
+        }
+    }
+
+    // Unflushed deltas are dropped with the counters: the rebuilt row already accounts for them.
+    public void rebuildFromReservations() {
+        flushLock.writeLock().lock();
+        try {
+            for (ReentrantLock stripe : stripes) {
+                stripe.lock();
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        inventoryRepository.rebuildReservedFromReservations()
+                );
+                counters.clear();
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    stripes[i].unlock();
+                }
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+
+    private void refresh(Long productId) {
+        if (!counters.containsKey(productId)) {
+            return;
+        }
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            StockCounter counter = counters.get(productId);
+            if (counter != null && !resync(productId, counter)) {
+                counters.remove(productId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<Long, Integer> drain(Collection<Long> productIds) {
+        Map<Long, Integer> drained = new TreeMap<>();
+        for (Long productId : productIds) {
+            ReentrantLock lock = lockFor(productId);
+            lock.lock();
+            try {
+                StockCounter counter = counters.get(productId);
+                if (counter != null && counter.pending != 0) {
+                    drained.put(productId, counter.pending);
+                    counter.inFlight += counter.pending;
+                    counter.pending = 0;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return drained;
+    }
+
+    private void releaseNow(Long productId, int quantity) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            StockCounter counter = counterFor(productId);
+            int released = Math.min(quantity, counter.reserved);
+            counter.reserved -= released;
+            counter.pending -= released;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void settle(Map<Long, Integer> drained, boolean committed) {
+        drained.forEach((productId, delta) -> {
+            ReentrantLock lock = lockFor(productId);
+            lock.lock();
+            try {
+                StockCounter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.inFlight -= delta;
+                    if (!committed) {
+                        counter.pending += delta;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Callers must hold the stripe lock for productId.
+    private StockCounter counterFor(Long productId) {
+        StockCounter counter = counters.get(productId);
+        if (counter == null) {
+            counter = new StockCounter();
+            if (!resync(productId, counter)) {
+                throw new InventoryNotFoundException("Inventory not found with product id " + productId);
+            }
+            counters.put(productId, counter);
+        }
+        return counter;
+    }
+
+    // Unflushed deltas are not in the row yet, so they are layered back on top of it. While a flush is in
+    // flight its delta may or may not be in the row already (it can have committed with settle() still to
+    // run), so only the quantity is taken and the reserved total is resynced by a later flushPending().
+    // Callers must hold the stripe lock for productId.
+    private boolean resync(Long productId, StockCounter counter) {
+        List<int[]> rows = jdbcTemplate.query(
+                "SELECT total_quantity, total_reserved FROM inventory WHERE product_id = ?",
+                (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)},
+                productId
+        );
+        if (rows.isEmpty()) {
+            return false;
+        }
+        counter.quantity = rows.get(0)[0];
+        counter.resyncDeferred = counter.inFlight != 0;
+        if (!counter.resyncDeferred) {
+            counter.reserved = rows.get(0)[1] + counter.pending;
+        }
+        return true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private ReentrantLock lockFor(Long productId) {
+        return stripes[Math.floorMod(productId.hashCode(), STRIPES)];
+    }
+
+    private static ReentrantLock[] createStripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+
+    private static final class StockCounter {
+        private int quantity;
+        private int reserved;
+        private int pending;
+        private int inFlight;
+        private boolean resyncDeferred;
+    }
+}
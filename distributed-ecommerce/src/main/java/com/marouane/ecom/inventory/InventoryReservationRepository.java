@@ -1,9 +1,15 @@
 package com.marouane.ecom.inventory;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,8 +17,44 @@ import java.util.UUID;
 public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, UUID> {
     List<InventoryReservation> findByOrderId(UUID orderId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.orderId = :orderId")
+    List<InventoryReservation> findByOrderIdWithLock(@Param("orderId") UUID orderId);
+
     List<InventoryReservation> findByExpiresAtBefore(LocalDateTime cutoff);
 
 
     boolean existsByProductIdAndExpiresAtAfter(Long productId, LocalDateTime now);
+
+
+    @Query(value = """
+    SELECT * FROM inventory_reservations
+    WHERE expires_at < :cutoff
+      AND mod(product_id, :partitions) = :partition
+    ORDER BY expires_at
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+""", nativeQuery = true)
+    List<InventoryReservation> claimExpiredInPartition(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("partitions") int partitions,
+            @Param("partition") int partition,
+            @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT * FROM inventory_reservations WHERE id IN :ids FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InventoryReservation> claimAllById(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT r.id FROM InventoryReservation r WHERE r.id IN :ids")
+    List<UUID> findIdsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:namespace, :partition)", nativeQuery = true)
+    boolean tryPartitionLock(@Param("namespace") int namespace, @Param("partition") int partition);
+
+    @Query("SELECT new com.marouane.ecom.inventory.ReservationExpiry(r.id, r.expiresAt) FROM InventoryReservation r")
+    List<ReservationExpiry> findAllExpiries();
+
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -1,6 +1,11 @@
 package com.marouane.ecom.inventory;
 
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationBus;
+import com.marouane.ecom.common.CheckoutMetrics;
+import com.marouane.ecom.common.KeysetPaging;
 import com.marouane.ecom.common.PageResponse;
+import com.marouane.ecom.config.CacheConfig;
 import com.marouane.ecom.exception.*;
 import com.marouane.ecom.parser.StockUpdateRecord;
 import com.marouane.ecom.product.Product;
@@ -9,6 +14,7 @@ import com.marouane.ecom.product.ProductStatus;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -18,29 +24,50 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
+    private static final int REAPER_LOCK_NAMESPACE = 7301;
+
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
     private final InventoryMapper inventoryMapper;
     private final InventoryReservationRepository reservationRepository;
     private final PlatformTransactionManager transactionManager;
-    private final ExecutorService bulkUpdateExecutor =
-            Executors.newFixedThreadPool(4);
+    private final InventoryReservationEngine reservationEngine;
+    private final ReservationExpiryWheel expiryWheel;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final CheckoutMetrics checkoutMetrics;
+
+    @Value("${application.inventory.reservation.mode:LOCKING}")
+    private ReservationMode reservationMode;
+
+    @Value("${application.inventory.reservation.expiry.chunk-size:200}")
+    private int expiryChunkSize;
+
+    @Value("${application.inventory.reservation.expiry.partitions:16}")
+    private int expiryPartitions;
 
 
     @Transactional
@@ -70,7 +97,8 @@ public class InventoryService {
             String sortBy,
             String sortDirection,
             String searchTerm,
-            String stockLevel) {
+            String stockLevel,
+            String cursor) {
 
         // Create Sort object
         Sort sort = Sort.by("createdAt").descending();
@@ -118,6 +146,11 @@ public class InventoryService {
             }
         }
 
+        if (cursor != null) {
+            return KeysetPaging.scroll(inventoryRepository, spec, sort, size, cursor,
+                    inventories -> inventories.stream().map(inventoryMapper::toDto).toList());
+        }
+
         Page<Inventory> inventoryPage = inventoryRepository.findAll(spec, pageable);
 
         List<InventoryResponseDto> responses = inventoryPage.getContent().stream()
@@ -137,26 +170,74 @@ public class InventoryService {
 
 
 
-   @Transactional
+   // Manual holds have no reservation rows, so each one is also counted in total_held for the rebuild.
    public void reserveStock(Long productId, int quantity) {
-       Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-               .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id" + productId));
-
-       inventory.reserveStock(quantity);
-       inventoryRepository.save(inventory);
+       if (reservationMode == ReservationMode.IN_MEMORY) {
+           new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+               reservationEngine.reserve(productId, quantity);
+               inventoryRepository.adjustHeld(productId, quantity);
+           });
+           return;
+       }
+       if (reservationMode == ReservationMode.CONDITIONAL) {
+           new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+               reserveConditionally(productId, quantity);
+               inventoryRepository.adjustHeld(productId, quantity);
+           });
+           return;
+       }
+
+       new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+           Inventory inventory = lockByProductId(productId);
+
+           inventory.reserveStock(quantity);
+           inventory.setTotalHeld(inventory.getTotalHeld() + quantity);
+           inventoryRepository.save(inventory);
+       });
    }
 
 
 
-    @Transactional
     public void releaseReservation(Long productId, int quantity) {
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id" + productId));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            releaseReserved(productId, quantity);
+            inventoryRepository.adjustHeld(productId, -quantity);
+        });
+    }
+
+    private void releaseReserved(Long productId, int quantity) {
+        if (reservationMode == ReservationMode.IN_MEMORY) {
+            reservationEngine.release(productId, quantity);
+            return;
+        }
+        if (reservationMode == ReservationMode.CONDITIONAL) {
+            if (inventoryRepository.releaseReserved(productId, quantity) == 0) {
+                throw new InventoryNotFoundException("Inventory not found with product id " + productId);
+            }
+            return;
+        }
+
+        Inventory inventory = lockByProductId(productId);
 
         inventory.releaseStock(quantity);
         inventoryRepository.save(inventory);
     }
 
+    // A zero row count means the guard failed; the follow-up read only runs on that path and
+    // only serves to tell a missing row from a short one for the error message.
+    private void reserveConditionally(Long productId, int quantity) {
+        if (inventoryRepository.reserveIfAvailable(productId, quantity) == 1) {
+            return;
+        }
+
+        Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + productId));
+        throw new InsufficientStockException(
+                "Insufficient stock for product id " + productId +
+                        " (Available: " + inventory.getAvailableQuantity() + ", Requested: " + quantity + ")"
+        );
+    }
+
     @Transactional(readOnly = true)
     public InventoryResponseDto  getInventory(Long productId) {
         Inventory inventory = inventoryRepository.findByProductId(productId)
@@ -173,71 +254,199 @@ public class InventoryService {
                 .orElse(0) >= quantity;
     }
 
-    //anrj3 l hadi apres to fix some stuff
     @Transactional
     public UUID reserveForOrder(Map<Long, Integer> productQuantities, UUID orderId) {
+        return checkoutMetrics.record(CheckoutMetrics.Stage.RESERVE, () -> reserve(productQuantities, orderId));
+    }
+
+    private UUID reserve(Map<Long, Integer> productQuantities, UUID orderId) {
         LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(30);
 
-        productQuantities.forEach(
-                (productId, quantity) -> {
-                    Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-                            .orElseThrow(() -> new InventoryNotFoundException("Inventory not found"));
-
-//                    if(inventory.getAvailableQuantity() < quantity) {
-//                        throw new InsufficientStockException("Insufficient stock for product id" + productId);
-//                    }
-//                    inventory.reserveStock(quantity);
-
-                    reserveStock(productId, quantity);
-
-                    reservationRepository.save(
-                            InventoryReservation.builder()
-                                    .productId(productId)
-                                    .quantity(quantity)
-                                    .orderId(orderId)
-                                    .expiresAt(expiresAt)
-                                    .build()
-                    );
+        if (reservationMode == ReservationMode.IN_MEMORY) {
+            productQuantities.forEach(reservationEngine::reserve);
+        } else if (reservationMode == ReservationMode.CONDITIONAL) {
+            new TreeMap<>(productQuantities).forEach(this::reserveConditionally);
+        } else {
+            reserveAllWithLock(productQuantities);
+        }
 
-                });
+        List<InventoryReservation> reservations = reservationRepository.saveAll(
+                productQuantities.entrySet().stream()
+                        .map(entry -> InventoryReservation.builder()
+                                .productId(entry.getKey())
+                                .quantity(entry.getValue())
+                                .orderId(orderId)
+                                .expiresAt(expiresAt)
+                                .build())
+                        .toList()
+        );
+        expiryWheel.schedule(reservations);
         return orderId;
     }
 
+    private Inventory lockByProductId(Long productId) {
+        return checkoutMetrics.recordLockWait(CheckoutMetrics.LockQuery.SINGLE, () ->
+                inventoryRepository.findByProductIdWithLock(productId)
+        ).orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + productId));
+    }
+
+    private List<Inventory> lockAllByProductIds(Collection<Long> productIds) {
+        return checkoutMetrics.recordLockWait(CheckoutMetrics.LockQuery.BATCH, () ->
+                inventoryRepository.findAllByProductIdInWithLock(productIds));
+    }
+
+    // One sorted FOR UPDATE over every product in the order: a single round trip, and concurrent
+    // checkouts always acquire rows in the same order so they cannot deadlock each other.
+    private void reserveAllWithLock(Map<Long, Integer> productQuantities) {
+        List<Inventory> inventories =
+                lockAllByProductIds(productQuantities.keySet());
+
+        if (inventories.size() != productQuantities.size()) {
+            Set<Long> missing = new TreeSet<>(productQuantities.keySet());
+            inventories.forEach(inventory -> missing.remove(inventory.getProduct().getId()));
+            throw new InventoryNotFoundException("Inventory not found with product ids " + missing);
+        }
+
+        List<String> shortages = inventories.stream()
+                .filter(inventory -> inventory.getAvailableQuantity()
+                        < productQuantities.get(inventory.getProduct().getId()))
+                .map(inventory -> "product id " + inventory.getProduct().getId() +
+                        " (Available: " + inventory.getAvailableQuantity() +
+                        ", Requested: " + productQuantities.get(inventory.getProduct().getId()) + ")")
+                .toList();
+        if (!shortages.isEmpty()) {
+            throw new InsufficientStockException("Insufficient stock for " + String.join(", ", shortages));
+        }
+
+        inventories.forEach(inventory ->
+                inventory.reserveStock(productQuantities.get(inventory.getProduct().getId())));
+        inventoryRepository.saveAll(inventories);
+    }
+
 
     @Transactional
     public void confirmReservation(UUID orderId){
         List<InventoryReservation> reservations =
-                reservationRepository.findByOrderId(orderId);
+                reservationRepository.findByOrderIdWithLock(orderId);
 
         if(reservations.isEmpty()){
             throw new ReservationNotFoundException("Reservations not found with order id " + orderId);
         }
 
+        reservationEngine.flush(reservations.stream()
+                .map(InventoryReservation::getProductId)
+                .toList());
+
         reservations.forEach(reservation -> {
-            Inventory inventory = inventoryRepository.findByProductIdWithLock(reservation.getProductId())
-                    .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + reservation.getProductId()));
+            Inventory inventory = lockByProductId(reservation.getProductId());
 
             inventory.fulfillReservedStock(reservation.getQuantity());
         });
+        cacheInvalidationBus.publishAll(reservations.stream()
+                .map(reservation -> CacheInvalidation.of(CacheConfig.INVENTORY, reservation.getProductId()))
+                .toList());
 
         reservationRepository.deleteAll(reservations);
+        expiryWheel.cancel(reservations);
 
     }
 
-    @Scheduled(fixedRate = 60_000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${application.inventory.reservation.expiry.tick-ms:1000}")
+    public void releaseDueReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> due = expiryWheel.drainDue(now);
+
+        for (int from = 0; from < due.size(); from += expiryChunkSize) {
+            List<UUID> chunk = due.subList(from, Math.min(from + expiryChunkSize, due.size()));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                List<InventoryReservation> claimed = reservationRepository.claimAllById(chunk);
+                Map<Boolean, List<InventoryReservation>> expired = claimed.stream()
+                        .collect(Collectors.partitioningBy(reservation -> !reservation.getExpiresAt().isAfter(now)));
+                releaseClaimed(expired.get(true));
+                // Not due yet (the row's expiry moved, or this node's clock did): keep it on the wheel
+                if (!expired.get(false).isEmpty()) {
+                    expiryWheel.retry(expired.get(false).stream().map(InventoryReservation::getId).toList(), now);
+                }
+                if (claimed.size() < chunk.size()) {
+                    retryUnclaimed(chunk, claimed, now);
+                }
+            });
+        }
+    }
+
+    // SKIP LOCKED passes over rows another transaction holds (a confirm, a release, another node's sweep).
+    // Those still exist and go back on the wheel; ids whose rows are gone were settled elsewhere.
+    private void retryUnclaimed(List<UUID> chunk, List<InventoryReservation> claimed, LocalDateTime now) {
+        Set<UUID> claimedIds = claimed.stream().map(InventoryReservation::getId).collect(Collectors.toSet());
+        List<UUID> unclaimed = chunk.stream().filter(id -> !claimedIds.contains(id)).toList();
+        List<UUID> remaining = reservationRepository.findIdsByIdIn(unclaimed);
+        if (!remaining.isEmpty()) {
+            expiryWheel.retry(remaining, now);
+        }
+    }
+
+    // Fallback for reservations this node's wheel does not know about (other nodes, lost on restart).
+    // Reservations are split into hash partitions of product id; a node only reaps a partition while it
+    // holds that partition's transaction-scoped advisory lock, so nodes spread over different partitions
+    // instead of queueing on the same rows. Starting at a random partition keeps them from colliding.
+    @Scheduled(fixedRateString = "${application.inventory.reservation.expiry.sweep-interval-ms:60000}")
     public void releaseExpiredReservations(){
         LocalDateTime now = LocalDateTime.now();
-        List<InventoryReservation> expired = reservationRepository.findByExpiresAtBefore(now);
+        int start = ThreadLocalRandom.current().nextInt(expiryPartitions);
+
+        for (int i = 0; i < expiryPartitions; i++) {
+            int partition = (start + i) % expiryPartitions;
+            while (reapPartition(partition, now) == expiryChunkSize) {
+                // keep draining this partition while full chunks come back
+            }
+        }
+    }
+
+    private int reapPartition(int partition, LocalDateTime now) {
+        Integer reaped = new TransactionTemplate(transactionManager).execute(status -> {
+            if (!reservationRepository.tryPartitionLock(REAPER_LOCK_NAMESPACE, partition)) {
+                return 0;
+            }
+            List<InventoryReservation> claimed = reservationRepository.claimExpiredInPartition(
+                    now, expiryPartitions, partition, expiryChunkSize);
+            releaseClaimed(claimed);
+            return claimed.size();
+        });
+        return reaped == null ? 0 : reaped;
+    }
 
-        for(InventoryReservation res : expired){
-            Inventory inventory = inventoryRepository.findByProductIdWithLock(res.getProductId())
-                    .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + res.getProductId()));
-            inventory.releaseStock(res.getQuantity());
-            inventoryRepository.save(inventory);
+    // Callers hold the row locks on the claimed reservations (FOR UPDATE SKIP LOCKED), so each one is
+    // released by exactly one transaction. Inventory rows are then locked in product order with one
+    // release per product, and the reservations go in a single delete.
+    private void releaseClaimed(List<InventoryReservation> claimed) {
+        if (claimed.isEmpty()) {
+            return;
         }
 
-        reservationRepository.deleteAll(expired);
+        releaseReservedBulk(claimed.stream().collect(Collectors.groupingBy(
+                InventoryReservation::getProductId,
+                TreeMap::new,
+                Collectors.summingInt(InventoryReservation::getQuantity)
+        )));
+        reservationRepository.deleteAllByIdIn(claimed.stream().map(InventoryReservation::getId).toList());
+    }
+
+    private void releaseReservedBulk(Map<Long, Integer> productQuantities) {
+        if (reservationMode == ReservationMode.IN_MEMORY) {
+            productQuantities.forEach(reservationEngine::release);
+            return;
+        }
+        // One guarded UPDATE per product either way, with the same missing-row check as a single release
+        if (reservationMode == ReservationMode.CONDITIONAL) {
+            productQuantities.forEach(this::releaseReserved);
+            return;
+        }
+
+        List<Inventory> inventories =
+                lockAllByProductIds(productQuantities.keySet());
+        inventories.forEach(inventory ->
+                inventory.releaseStock(productQuantities.get(inventory.getProduct().getId())));
+        inventoryRepository.saveAll(inventories);
     }
 
 
@@ -248,85 +457,137 @@ public class InventoryService {
         );
     }
 
+    @Transactional
     public void releaseAllReservationsForOrder(UUID orderId){
-        List<InventoryReservation> reservations = reservationRepository.findByOrderId(orderId);
+        List<InventoryReservation> reservations = reservationRepository.findByOrderIdWithLock(orderId);
 
-        reservations.forEach(reservation -> {
-            Inventory inventory = inventoryRepository.findByProductIdWithLock(
-                    reservation.getProductId()
-            ).orElseThrow(() -> new InventoryNotFoundException("Inventory not found"));
-
-            inventory.releaseStock(reservation.getQuantity());
-            inventoryRepository.save(inventory);
-        });
+        reservations.forEach(reservation ->
+                releaseReserved(reservation.getProductId(), reservation.getQuantity())
+        );
 
         reservationRepository.deleteAll(reservations);
+        expiryWheel.cancel(reservations);
 
     }
 
 
-    public void bulkUpdateStock(List<StockUpdateRecord> updates){
-        List<CompletableFuture<Void>> futures = updates.stream()
-                .map(update -> CompletableFuture.runAsync(
-                        () -> {
-                            TransactionTemplate transactionTemplate =
-                                    new TransactionTemplate(transactionManager);
-                            transactionTemplate.execute(status -> {
-                                try {
-                                    updateSingleProduct(update);
-                                    return null;
-                                } catch (Exception e) {
-                                    status.setRollbackOnly();
-                                    throw new CompletionException(e);
-                                }
-                            });
-                        },
-                        bulkUpdateExecutor
-                ))
+    // One transaction per chunk: rows are first merged per product so each product and inventory row is
+    // written once, product ids come from the import's dictionary or one lookup query, and products and
+    // inventory rows that do not exist yet are inserted with ON CONFLICT DO NOTHING. Chunks running in
+    // parallel can still meet on the same new name or product id, and the later insert then waits for
+    // the earlier chunk to commit; inserting in name and id order keeps those waits from deadlocking.
+    // Inventory rows are then locked in product order and written back in JDBC batches. Rows without a
+    // product name or quantity are skipped.
+    @Transactional
+    public ChunkImportResult importChunk(List<StockUpdateRecord> records, ProductIdDictionary dictionary) {
+        List<StockUpdateRecord> valid = records.stream()
+                .filter(record -> record.getProductName() != null && !record.getProductName().isBlank())
+                .filter(record -> record.getQuantity() != null)
                 .toList();
-
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        } catch (CompletionException e) {
-            throw new RuntimeException("Some updates failed: " + e.getCause().getMessage());
+        if (valid.isEmpty()) {
+            return ChunkImportResult.builder().build();
         }
+
+        Map<String, StockUpdateRecord> merged = coalesceByProductName(valid);
+        Map<String, Long> productIds = resolveProductIds(merged, dictionary);
+
+        inventoryRepository.createMissingForProducts(productIds.values());
+        Map<Long, Inventory> inventories = lockAllByProductIds(productIds.values())
+                .stream()
+                .collect(Collectors.toMap(inventory -> inventory.getProduct().getId(), Function.identity()));
+
+        merged.values().forEach(record ->
+                inventories.get(productIds.get(record.getProductName())).addStock(record.getQuantity()));
+
+        inventoryRepository.saveAll(inventories.values());
+        cacheInvalidationBus.publishAll(inventories.keySet().stream()
+                .map(productId -> CacheInvalidation.of(CacheConfig.INVENTORY, productId))
+                .toList());
+        return ChunkImportResult.builder()
+                .succeeded(valid.size())
+                .coalescedRows(valid.size() - merged.size())
+                .build();
     }
 
+    private Map<String, Long> resolveProductIds(Map<String, StockUpdateRecord> merged, ProductIdDictionary dictionary) {
+        Map<String, Long> productIds = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        merged.keySet().forEach(name -> {
+            Long id = dictionary.get(name);
+            if (id != null) {
+                productIds.put(name, id);
+            } else {
+                unknown.add(name);
+            }
+        });
+        if (unknown.isEmpty()) {
+            return productIds;
+        }
 
-    protected void updateSingleProduct(StockUpdateRecord update){
+        Map<String, Long> resolved = new HashMap<>();
+        productRepository.findIdsByNameIn(unknown).forEach(product -> resolved.put(product.name(), product.id()));
 
-        if (update.getProductName() == null || update.getProductName().isBlank()) {
-            throw new IllegalArgumentException("Product name is required for record: " + update.toString());
+        List<Product> missing = unknown.stream()
+                .filter(name -> !resolved.containsKey(name))
+                .sorted()
+                .map(name -> newProduct(merged.get(name)))
+                .toList();
+        Map<String, Long> inserted = productRepository.insertIfAbsent(missing);
+        resolved.putAll(inserted);
+        if (!inserted.isEmpty()) {
+            // New products only show up in listings; nothing can be cached under their ids yet
+            cacheInvalidationBus.publish(CacheInvalidation.all(CacheConfig.PRODUCT_QUERIES));
         }
-        if (update.getQuantity() == null) {
-            throw new IllegalArgumentException("Quantity is required");
+
+        List<String> insertedElsewhere = missing.stream()
+                .map(Product::getName)
+                .filter(name -> !resolved.containsKey(name))
+                .toList();
+        if (!insertedElsewhere.isEmpty()) {
+            productRepository.findIdsByNameIn(insertedElsewhere)
+                    .forEach(product -> resolved.put(product.name(), product.id()));
         }
 
+        // Ids inserted by this chunk only exist once it commits.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dictionary.putAll(resolved);
+            }
+        });
+        productIds.putAll(resolved);
+        return productIds;
+    }
 
-        Product product = productRepository.findByName(update.getProductName())
-                .orElseGet(() -> {
-                    Product newProduct = new Product();
-                    newProduct.setName(update.getProductName());
-                    newProduct.setCategory(update.getCategory());
-                    newProduct.setDescription(update.getDescription());
-                    newProduct.setStatus(update.getStatus() != null ?
-                            update.getStatus() : ProductStatus.ACTIVE);
-                    newProduct.setPrice(update.getPrice() != null ?
-                            update.getPrice() : BigDecimal.ZERO);
-                    return productRepository.save(newProduct);
-                });
-
-
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(product.getId())
-                .orElseGet(() -> {
-                    Inventory newInventory = new Inventory();
-                    newInventory.setProduct(product);
-                    newInventory.setTotalQuantity(0);
-                    return inventoryRepository.save(newInventory);
-                });
-
-        inventory.addStock(update.getQuantity());
-        inventoryRepository.save(inventory);
+    // Quantities are summed; for the product metadata the last non-null value in the feed wins.
+    private Map<String, StockUpdateRecord> coalesceByProductName(List<StockUpdateRecord> records) {
+        Map<String, StockUpdateRecord> merged = new LinkedHashMap<>();
+        records.forEach(record -> merged.merge(
+                record.getProductName(),
+                new StockUpdateRecord(record.getProductName(), record.getQuantity(), record.getCategory(),
+                        record.getDescription(), record.getStatus(), record.getPrice()),
+                (previous, next) -> new StockUpdateRecord(
+                        previous.getProductName(),
+                        previous.getQuantity() + next.getQuantity(),
+                        next.getCategory() != null ? next.getCategory() : previous.getCategory(),
+                        next.getDescription() != null ? next.getDescription() : previous.getDescription(),
+                        next.getStatus() != null ? next.getStatus() : previous.getStatus(),
+                        next.getPrice() != null ? next.getPrice() : previous.getPrice()
+                )
+        ));
+        return merged;
+    }
+
+    private Product newProduct(StockUpdateRecord record) {
+        Product product = new Product();
+        product.setName(record.getProductName());
+        product.setCategory(record.getCategory());
+        product.setDescription(record.getDescription());
+        product.setStatus(record.getStatus() != null ?
+                record.getStatus() : ProductStatus.ACTIVE);
+        product.setPrice(record.getPrice() != null ?
+                record.getPrice() : BigDecimal.ZERO);
+        return product;
     }
 
 
@@ -354,6 +615,15 @@ public class InventoryService {
                 .orElse(0);
     }
 
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getStockForProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return inventoryRepository.findStockByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductStock::productId, ProductStock::availableQuantity));
+    }
+
 
 
     @Transactional(readOnly = true)
@@ -378,8 +648,8 @@ public class InventoryService {
 
     @Transactional
     public InventoryResponseDto updateInventory(Long productId, int newQuantity) {
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + productId));
+        reservationEngine.flush(List.of(productId));
+        Inventory inventory = lockByProductId(productId);
 
         // Validate the new quantity
         if (newQuantity < 0) {
@@ -393,12 +663,14 @@ public class InventoryService {
 
         inventory.setTotalQuantity(newQuantity);
         Inventory updatedInventory = inventoryRepository.save(inventory);
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.INVENTORY, productId));
         return inventoryMapper.toDto(updatedInventory);
     }
 
 
     @Transactional
     public void deleteInventory(Long productId) {
+        reservationEngine.flush(List.of(productId));
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory not found with product id " + productId));
 
@@ -413,12 +685,14 @@ public class InventoryService {
         }
 
         inventoryRepository.delete(inventory);
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.INVENTORY, productId));
     }
 
     @Transactional
     public void deleteByProductId(Long productId) {
         inventoryRepository.findByProductId(productId)
                 .ifPresent(inventoryRepository::delete);
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.INVENTORY, productId));
     }
 
 
@@ -0,0 +1,35 @@
+package com.marouane.ecom.inventory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product name to id lookups shared by all chunks of one import. Only ids from committed chunks are
+ * added, and the dictionary stops growing at {@code maxEntries} so feeds with millions of distinct
+ * names fall back to per-chunk lookups instead of holding every name in memory.
+ */
+public class ProductIdDictionary {
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public ProductIdDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Long get(String productName) {
+        return ids.get(productName);
+    }
+
+    public void putAll(Map<String, Long> productIds) {
+        productIds.forEach((name, id) -> {
+            if (ids.size() < maxEntries) {
+                ids.put(name, id);
+            }
+        });
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
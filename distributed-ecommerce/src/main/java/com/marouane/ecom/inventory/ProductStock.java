@@ -0,0 +1,4 @@
+package com.marouane.ecom.inventory;
+
+public record ProductStock(Long productId, Integer availableQuantity) {
+}
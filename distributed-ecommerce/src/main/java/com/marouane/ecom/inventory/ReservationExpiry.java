@@ -0,0 +1,7 @@
+package com.marouane.ecom.inventory;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ReservationExpiry(UUID id, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,136 @@
+package com.marouane.ecom.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservation ids bucketed by expiry time, so expired reservations can be picked up shortly after
+ * {@code expiresAt} without scanning the table. A bucket becomes due once its upper bound has passed.
+ * <p>
+ * The wheel is node-local and only knows reservations created or seeded on this node; the periodic
+ * sweep in {@link InventoryService#releaseExpiredReservations()} covers everything else.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationExpiryWheel {
+
+    private final InventoryReservationRepository reservationRepository;
+
+    private final NavigableMap<Long, Set<UUID>> buckets = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${application.inventory.reservation.expiry.bucket-seconds:5}")
+    private long bucketSeconds;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reservationRepository.findAllExpiries()
+                .forEach(expiry -> add(expiry.id(), expiry.expiresAt()));
+    }
+
+    public void schedule(Collection<InventoryReservation> reservations) {
+        List<InventoryReservation> scheduled = List.copyOf(reservations);
+        afterCommit(() -> scheduled.forEach(reservation ->
+                add(reservation.getId(), reservation.getExpiresAt())));
+    }
+
+    public void cancel(Collection<InventoryReservation> reservations) {
+        List<InventoryReservation> cancelled = List.copyOf(reservations);
+        afterCommit(() -> {
+            lock.lock();
+            try {
+                cancelled.forEach(reservation -> {
+                    Set<UUID> bucket = buckets.get(bucketOf(reservation.getExpiresAt()));
+                    if (bucket != null) {
+                        bucket.remove(reservation.getId());
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public List<UUID> drainDue(LocalDateTime now) {
+        List<UUID> due = new ArrayList<>();
+        lock.lock();
+        try {
+            Map<Long, Set<UUID>> dueBuckets = buckets.headMap(
+                    Math.floorDiv(now.toEpochSecond(ZoneOffset.UTC), bucketSeconds), true);
+            dueBuckets.values().forEach(due::addAll);
+            dueBuckets.clear();
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    // For due ids that could not be released this tick: they come back with the next bucket.
+    public void retry(Collection<UUID> reservationIds, LocalDateTime now) {
+        long nextBucket = Math.floorDiv(now.toEpochSecond(ZoneOffset.UTC), bucketSeconds) + 1;
+        lock.lock();
+        try {
+            buckets.computeIfAbsent(nextBucket, key -> new HashSet<>()).addAll(reservationIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return buckets.values().stream().mapToInt(Set::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    private void add(UUID reservationId, LocalDateTime expiresAt) {
+        lock.lock();
+        try {
+            buckets.computeIfAbsent(bucketOf(expiresAt), key -> new HashSet<>()).add(reservationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Buckets are keyed by their upper bound, so nothing in a due bucket expires after "now". A
+    // fraction of a second counts as a whole one, or T+0.7 would land in the bucket due at T.
+    private long bucketOf(LocalDateTime expiresAt) {
+        long epochSecond = expiresAt.toEpochSecond(ZoneOffset.UTC) + (expiresAt.getNano() > 0 ? 1 : 0);
+        return Math.floorDiv(epochSecond + bucketSeconds - 1, bucketSeconds);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.marouane.ecom.inventory;
+
+public enum ReservationMode {
+    LOCKING,
+    IN_MEMORY,
+    CONDITIONAL
+}
@@ -0,0 +1,127 @@
+package com.marouane.ecom.inventory;
+
+import com.marouane.ecom.parser.CountingInputStream;
+import com.marouane.ecom.parser.CsvStockUpdateParserService;
+import com.marouane.ecom.parser.StockUpdateChunk;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class StockImportService {
+
+    private final CsvStockUpdateParserService csvParser;
+    private final InventoryService inventoryService;
+    private final ImportJobRegistry jobRegistry;
+    private final Executor bulkUpdateExecutor;
+    private final Executor bulkImportJobExecutor;
+
+    @Value("${application.inventory.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${application.inventory.import.max-in-flight-chunks:4}")
+    private int maxInFlightChunks;
+
+    @Value("${application.inventory.import.dictionary-max-entries:200000}")
+    private int dictionaryMaxEntries;
+
+
+    // The upload is copied to a temp file first: the multipart content is only guaranteed to exist
+    // until the request completes, and the job outlives the request.
+    public ImportJob submit(MultipartFile file) throws IOException {
+        Path upload = Files.createTempFile("stock-import-", ".csv");
+        file.transferTo(upload);
+
+        ImportJob job = jobRegistry.register(new ImportJob(Files.size(upload)));
+        try {
+            bulkImportJobExecutor.execute(() -> run(job, upload));
+        } catch (RejectedExecutionException e) {
+            jobRegistry.remove(job.getId());
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return job;
+    }
+
+    public BulkImportResult importStock(InputStream input) throws IOException {
+        return importStock(input, result -> {});
+    }
+
+    // The reader blocks once maxInFlightChunks chunks are queued or running, so at most that many
+    // chunks are held in memory and at most that many connections are taken from the pool.
+    public BulkImportResult importStock(InputStream input, Consumer<ChunkImportResult> progress) throws IOException {
+        Semaphore permits = new Semaphore(maxInFlightChunks);
+        ProductIdDictionary dictionary = new ProductIdDictionary(dictionaryMaxEntries);
+        List<CompletableFuture<ChunkImportResult>> results = new ArrayList<>();
+
+        csvParser.parseInChunks(input, chunkSize, chunk -> {
+            permits.acquireUninterruptibly();
+            results.add(CompletableFuture
+                    .supplyAsync(() -> importChunk(chunk, dictionary), bulkUpdateExecutor)
+                    .whenComplete((result, e) -> {
+                        if (result != null) {
+                            progress.accept(result);
+                        }
+                        permits.release();
+                    }));
+        });
+
+        return BulkImportResult.of(results.stream()
+                .map(CompletableFuture::join)
+                .toList());
+    }
+
+
+    private void run(ImportJob job, Path upload) {
+        job.start();
+        try (InputStream input = new CountingInputStream(Files.newInputStream(upload), job::addBytesRead)) {
+            importStock(input, job::chunkCompleted);
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    private ChunkImportResult importChunk(StockUpdateChunk chunk, ProductIdDictionary dictionary) {
+        int rows = chunk.records().size() + chunk.rejectedRows();
+        try {
+            ChunkImportResult result = inventoryService.importChunk(chunk.records(), dictionary);
+            result.setIndex(chunk.index());
+            result.setRows(rows);
+            result.setFailed(rows - result.getSucceeded());
+            return result;
+        } catch (RuntimeException e) {
+            return ChunkImportResult.builder()
+                    .index(chunk.index())
+                    .rows(rows)
+                    .succeeded(0)
+                    .failed(rows)
+                    .error(e.getMessage())
+                    .build();
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.marouane.ecom.order;
+
+import java.math.BigDecimal;
+
+public record CustomerOrderStats(Integer userId, Long orderCount, BigDecimal totalSpent) {
+
+    public CustomerOrderStats {
+        // Orders not yet backfilled have no stored total, and SUM over only NULLs is NULL
+        totalSpent = totalSpent == null ? BigDecimal.ZERO : totalSpent;
+    }
+
+    public static CustomerOrderStats none(Integer userId) {
+        return new CustomerOrderStats(userId, 0L, BigDecimal.ZERO);
+    }
+}
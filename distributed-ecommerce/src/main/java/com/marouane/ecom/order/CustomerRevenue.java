@@ -0,0 +1,26 @@
+package com.marouane.ecom.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Written only through CustomerRevenueRepository's upsert; one row per user with revenue orders.
+@Entity
+@Table(name = "customer_revenue")
+@Getter
+@NoArgsConstructor
+public class CustomerRevenue {
+
+    @Id
+    private Integer userId;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.marouane.ecom.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CustomerRevenueDto(Integer customerId, long orderCount, BigDecimal revenue, LocalDateTime updatedAt) {
+
+    public static CustomerRevenueDto fromEntity(CustomerRevenue customerRevenue) {
+        return new CustomerRevenueDto(
+                customerRevenue.getUserId(),
+                customerRevenue.getOrderCount(),
+                customerRevenue.getRevenue(),
+                customerRevenue.getUpdatedAt());
+    }
+}
@@ -0,0 +1,39 @@
+package com.marouane.ecom.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+@Repository
+public interface CustomerRevenueRepository extends JpaRepository<CustomerRevenue, Integer> {
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO customer_revenue (user_id, order_count, revenue, updated_at)
+    VALUES (:userId, :orders, :revenue, now())
+    ON CONFLICT (user_id) DO UPDATE
+    SET order_count = customer_revenue.order_count + EXCLUDED.order_count,
+        revenue = customer_revenue.revenue + EXCLUDED.revenue,
+        updated_at = EXCLUDED.updated_at
+""", nativeQuery = true)
+    void add(@Param("userId") Integer userId, @Param("orders") long orders, @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_revenue", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO customer_revenue (user_id, order_count, revenue, updated_at)
+    SELECT user_id, COUNT(*), SUM(total_amount), now()
+    FROM orders
+    WHERE status IN (:statuses)
+    GROUP BY user_id
+""", nativeQuery = true)
+    int rebuildFromOrders(@Param("statuses") Collection<String> statuses);
+}
@@ -0,0 +1,41 @@
+package com.marouane.ecom.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Revenue per order day, split over a fixed number of slots. Every checkout on the same day would
+ * otherwise update one row and hold its lock until commit, serializing checkouts on it; with slots,
+ * concurrent checkouts mostly land on different rows and readers sum the slots of a day.
+ */
+@Entity
+@Table(name = "daily_revenue")
+@Getter
+@NoArgsConstructor
+public class DailyRevenue {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    private LocalDateTime updatedAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private int slot;
+    }
+}
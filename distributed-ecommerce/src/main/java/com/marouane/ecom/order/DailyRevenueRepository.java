@@ -0,0 +1,51 @@
+package com.marouane.ecom.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, DailyRevenue.Key> {
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO daily_revenue (day, slot, order_count, revenue, updated_at)
+    VALUES (:day, :slot, :orders, :revenue, now())
+    ON CONFLICT (day, slot) DO UPDATE
+    SET order_count = daily_revenue.order_count + EXCLUDED.order_count,
+        revenue = daily_revenue.revenue + EXCLUDED.revenue,
+        updated_at = EXCLUDED.updated_at
+""", nativeQuery = true)
+    void add(@Param("day") LocalDate day, @Param("slot") int slot,
+             @Param("orders") long orders, @Param("revenue") BigDecimal revenue);
+
+    @Query("""
+    SELECT new com.marouane.ecom.order.DailyRevenueTotal(d.id.day, SUM(d.orderCount), SUM(d.revenue))
+    FROM DailyRevenue d
+    WHERE d.id.day BETWEEN :from AND :to
+    GROUP BY d.id.day
+    ORDER BY d.id.day
+""")
+    List<DailyRevenueTotal> findTotalsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_revenue", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+    INSERT INTO daily_revenue (day, slot, order_count, revenue, updated_at)
+    SELECT CAST(created_at AS date), 0, COUNT(*), SUM(total_amount), now()
+    FROM orders
+    WHERE status IN (:statuses)
+    GROUP BY CAST(created_at AS date)
+""", nativeQuery = true)
+    int rebuildFromOrders(@Param("statuses") Collection<String> statuses);
+}
@@ -0,0 +1,7 @@
+package com.marouane.ecom.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyRevenueTotal(LocalDate day, Long orderCount, BigDecimal revenue) {
+}
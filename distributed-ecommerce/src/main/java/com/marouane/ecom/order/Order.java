@@ -45,8 +45,14 @@ public class Order {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
-    public BigDecimal getTotalAmount() {
-        return items.stream()
+    // Stored once the items are in place, so reading it never loads them; nullable only for rows
+    // written before the column existed, which OrderRollupInitializer backfills.
+    @Column(name = "total_amount")
+    @Builder.Default
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    public void calculateTotalAmount() {
+        totalAmount = items.stream()
                 .map(OrderItem::getSubtotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
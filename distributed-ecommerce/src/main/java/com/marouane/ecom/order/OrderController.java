@@ -2,7 +2,7 @@ package com.marouane.ecom.order;
 
 
 import com.marouane.ecom.exception.OrderNotFoundException;
-import com.marouane.ecom.user.User;
+import com.marouane.ecom.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -49,8 +49,8 @@ public class OrderController {
 
     @GetMapping
     public ResponseEntity<List<OrderDto>> getUserOrders(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        List<OrderDto> orders = orderService.findOrdersByUser(user);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        List<OrderDto> orders = orderService.findOrdersByUser(user.id());
         return ResponseEntity.ok(orders);
     }
 
@@ -60,8 +60,8 @@ public class OrderController {
             @PathVariable UUID orderId,
             Authentication authentication
     ) {
-        User user = (User) authentication.getPrincipal();
-        OrderDto order = orderService.findOrdersByUser(user).stream()
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        OrderDto order = orderService.findOrdersByUser(user.id()).stream()
                 .filter(o -> o.getId().equals(orderId))
                 .findFirst()
                 .orElseThrow(() -> new OrderNotFoundException("Order not found"));
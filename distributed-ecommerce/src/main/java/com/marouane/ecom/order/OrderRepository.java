@@ -1,15 +1,23 @@
 package com.marouane.ecom.order;
 
-import com.marouane.ecom.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    long countByUser(User user);
+    List<Order> findByUser_Id(Integer userId);
 
-    List<Order> findByUser(User user);
+    @Query("""
+    SELECT new com.marouane.ecom.order.CustomerOrderStats(o.user.id, COUNT(o), SUM(o.totalAmount))
+    FROM Order o
+    WHERE o.user.id IN :userIds
+    GROUP BY o.user.id
+""")
+    List<CustomerOrderStats> findStatsByUserIdIn(@Param("userIds") Collection<Integer> userIds);
 }
@@ -0,0 +1,64 @@
+package com.marouane.ecom.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+// Orders written before total_amount existed get their totals from their items once, in chunks so no
+// single statement holds row locks on the whole table; the revenue rollups are then rebuilt from them.
+@Component
+@RequiredArgsConstructor
+public class OrderRollupInitializer {
+
+    private static final String BACKFILL_SQL = """
+            UPDATE orders o
+            SET total_amount = COALESCE(
+                    (SELECT SUM(oi.quantity * oi.unit_price) FROM order_items oi WHERE oi.order_id = o.id), 0)
+            WHERE o.id IN (SELECT id FROM orders WHERE total_amount IS NULL LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RevenueRollupService revenueRollupService;
+    private final CustomerRevenueRepository customerRevenueRepository;
+    private final DailyRevenueRepository dailyRevenueRepository;
+
+    @Value("${application.orders.backfill.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${application.orders.revenue.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAndRebuild() {
+        long backfilled = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(BACKFILL_SQL, chunkSize);
+            backfilled += updated;
+        } while (updated == chunkSize);
+
+        if (backfilled > 0 || rebuildOnStartup || rollupsMissing()) {
+            revenueRollupService.rebuild();
+        }
+    }
+
+    // Either rollup table can be empty on its own, e.g. after it was added to an existing database
+    private boolean rollupsMissing() {
+        if (customerRevenueRepository.count() > 0 && dailyRevenueRepository.count() > 0) {
+            return false;
+        }
+        List<String> statuses = RevenueRollupService.revenueStatuses();
+        Boolean revenueOrders = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM orders WHERE status IN (" +
+                        String.join(",", Collections.nCopies(statuses.size(), "?")) + "))",
+                Boolean.class, statuses.toArray());
+        return Boolean.TRUE.equals(revenueOrders);
+    }
+}
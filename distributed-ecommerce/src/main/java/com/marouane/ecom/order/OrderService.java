@@ -3,23 +3,28 @@ package com.marouane.ecom.order;
 import com.marouane.ecom.cart.Cart;
 import com.marouane.ecom.cart.CartItem;
 import com.marouane.ecom.cart.CartRepository;
+import com.marouane.ecom.common.CheckoutMetrics;
 import com.marouane.ecom.exception.CartNotFoundException;
 import com.marouane.ecom.exception.EmptyCartException;
 import com.marouane.ecom.exception.PaymentFailedException;
 import com.marouane.ecom.inventory.InventoryService;
 import com.marouane.ecom.payment.PaymentResult;
 import com.marouane.ecom.payment.PaymentService;
+import com.marouane.ecom.security.AuthenticatedUser;
 import com.marouane.ecom.user.User;
+import com.marouane.ecom.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,11 +36,18 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final InventoryService inventoryService;
     private final PaymentService paymentService;
+    private final UserRepository userRepository;
+    private final CheckoutMetrics checkoutMetrics;
+    private final RevenueRollupService revenueRollupService;
 
     @Transactional
     public Order createOrderFromCart(Authentication connectedUser){
-        User user = (User) connectedUser.getPrincipal();
-        Cart cart = cartRepository.findByUser_Id(user.getId())
+        return checkoutMetrics.record(CheckoutMetrics.Stage.CREATE_ORDER, () -> createOrder(connectedUser));
+    }
+
+    private Order createOrder(Authentication connectedUser) {
+        AuthenticatedUser principal = (AuthenticatedUser) connectedUser.getPrincipal();
+        Cart cart = cartRepository.findByUser_Id(principal.id())
                 .orElseThrow(() -> new CartNotFoundException("Cart not found"));
 
         if (cart.isEmpty()){
@@ -48,6 +60,10 @@ public class OrderService {
                         CartItem::getQuantity
                 ));
 
+        // The order is returned with its user, so this needs the entity rather than a lazy reference
+        User user = userRepository.findById(principal.id())
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+
         Order order = Order.builder()
                 .user(user)
                 .items(new ArrayList<>())
@@ -67,6 +83,7 @@ public class OrderService {
                     .build();
             order.getItems().add(orderItem);
         }
+        order.calculateTotalAmount();
 
         order = orderRepository.save(order);
 
@@ -79,7 +96,7 @@ public class OrderService {
 
     @Transactional
     public void cancelOrder(UUID orderId, Authentication connectedUser) {
-        User user = (User) connectedUser.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
 
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
@@ -87,12 +104,18 @@ public class OrderService {
         validateOrderCancellation(user, order);
         inventoryService.releaseAllReservationsForOrder(order.getId());
 
-        order.setStatus(OrderStatus.CANCELLED);
+        changeStatus(order, OrderStatus.CANCELLED);
         orderRepository.save(order);
     }
 
-    private void validateOrderCancellation(User user, Order order) {
-        if(!order.getUser().getId().equals(user.getId())) {
+    private void changeStatus(Order order, OrderStatus status) {
+        OrderStatus previous = order.getStatus();
+        order.setStatus(status);
+        revenueRollupService.recordTransition(order, previous, status);
+    }
+
+    private void validateOrderCancellation(AuthenticatedUser user, Order order) {
+        if(!order.getUser().getId().equals(user.id())) {
             throw new SecurityException("Unauthorized to cancel this order");
         }
 
@@ -103,6 +126,10 @@ public class OrderService {
 
     @Transactional
     public Order completeOrder(Authentication connectedUser, String paymentToken) {
+        return checkoutMetrics.record(CheckoutMetrics.Stage.COMPLETE_ORDER, () -> complete(connectedUser, paymentToken));
+    }
+
+    private Order complete(Authentication connectedUser, String paymentToken) {
         Order order = createOrderFromCart(connectedUser);
 
         PaymentResult result = paymentService.process(
@@ -115,30 +142,32 @@ public class OrderService {
             throw new PaymentFailedException(result.message());
         }
 
-        order.setStatus(OrderStatus.PAID);
+        changeStatus(order, OrderStatus.PAID);
         return orderRepository.save(order);
 
     }
 
-    public long countByUser(User user) {
-        return orderRepository.countByUser(user);
+    // One grouped query for a whole page of customers; users without orders get zeroes
+    @Transactional(readOnly = true)
+    public Map<Integer, CustomerOrderStats> getStatsForUsers(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, CustomerOrderStats> stats = orderRepository.findStatsByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(CustomerOrderStats::userId, Function.identity(), (a, b) -> a, HashMap::new));
+        userIds.forEach(userId -> stats.computeIfAbsent(userId, CustomerOrderStats::none));
+        return stats;
     }
 
 
-
-    public List<OrderDto> findOrdersByUser(User user) {
-        List<Order> orders = orderRepository.findByUser(user);
+    public List<OrderDto> findOrdersByUser(Integer userId) {
+        List<Order> orders = orderRepository.findByUser_Id(userId);
         return orders.stream()
                 .map(OrderDto::fromEntity)
                 .toList();
     }
 
 
-    public BigDecimal getTotalSpentByUser(User user) {
-        return orderRepository.findByUser(user).stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 
 
 
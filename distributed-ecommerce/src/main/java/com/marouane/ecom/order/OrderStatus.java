@@ -7,6 +7,10 @@ public enum OrderStatus {
     SHIPPED,
     CANCELLED,
     FAILED,
-    PAID,
+    PAID;
 
+    // Orders in these states count towards the revenue rollups
+    public boolean isRevenue() {
+        return this == PAID || this == CONFIRMED || this == SHIPPED;
+    }
 }
@@ -0,0 +1,35 @@
+package com.marouane.ecom.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/revenue")
+@RequiredArgsConstructor
+public class RevenueController {
+
+    private final RevenueRollupService revenueRollupService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyRevenueTotal>> getDailyRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(revenueRollupService.getDailyRevenue(from, to));
+    }
+
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<CustomerRevenueDto> getCustomerRevenue(@PathVariable Integer customerId) {
+        return revenueRollupService.getCustomerRevenue(customerId)
+                .map(CustomerRevenueDto::fromEntity)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.marouane.ecom.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps {@code customer_revenue} and {@code daily_revenue} in step with order statuses. Each status change
+ * that enters or leaves a revenue status ({@link OrderStatus#isRevenue()}) applies a signed delta of one
+ * order and its stored total, in the same transaction as the change, so reports read the rollups instead
+ * of scanning orders or their items.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevenueRollupService {
+
+    private final CustomerRevenueRepository customerRevenueRepository;
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.orders.revenue.daily-slots:16}")
+    private int dailySlots;
+
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Order order, OrderStatus from, OrderStatus to) {
+        boolean wasRevenue = from != null && from.isRevenue();
+        boolean isRevenue = to != null && to.isRevenue();
+        if (wasRevenue == isRevenue) {
+            return;
+        }
+
+        long orders = isRevenue ? 1 : -1;
+        BigDecimal revenue = isRevenue ? order.getTotalAmount() : order.getTotalAmount().negate();
+        // Always customer row first, then the day's slot, so concurrent transitions lock in the same order
+        customerRevenueRepository.add(order.getUser().getId(), orders, revenue);
+        dailyRevenueRepository.add(order.getCreatedAt().toLocalDate(),
+                ThreadLocalRandom.current().nextInt(dailySlots), orders, revenue);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyRevenueTotal> getDailyRevenue(LocalDate from, LocalDate to) {
+        return dailyRevenueRepository.findTotalsBetween(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<CustomerRevenue> getCustomerRevenue(Integer userId) {
+        return customerRevenueRepository.findById(userId);
+    }
+
+    // Recomputes both rollups from the stored order totals; transitions wait on the table locks meanwhile.
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.execute("LOCK TABLE customer_revenue, daily_revenue IN EXCLUSIVE MODE");
+        List<String> statuses = revenueStatuses();
+        customerRevenueRepository.deleteAllRows();
+        dailyRevenueRepository.deleteAllRows();
+        customerRevenueRepository.rebuildFromOrders(statuses);
+        dailyRevenueRepository.rebuildFromOrders(statuses);
+    }
+
+    public static List<String> revenueStatuses() {
+        return Arrays.stream(OrderStatus.values())
+                .filter(OrderStatus::isRevenue)
+                .map(Enum::name)
+                .toList();
+    }
+}
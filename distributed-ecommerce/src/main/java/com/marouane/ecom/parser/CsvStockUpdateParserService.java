@@ -4,20 +4,23 @@ import com.opencsv.bean.CsvToBean;
 import com.opencsv.bean.CsvToBeanBuilder;
 import com.opencsv.bean.HeaderColumnNameMappingStrategy;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class CsvStockUpdateParserService {
 
-
-    public List<StockUpdateRecord> parse(MultipartFile file) throws IOException {
-        try(Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
+    // Reads the CSV lazily and hands it over chunkSize records at a time, so memory stays bounded by
+    // the chunks the consumer still holds. Lines that fail to bind are counted against their chunk.
+    public void parseInChunks(InputStream input, int chunkSize, Consumer<StockUpdateChunk> consumer) throws IOException {
+        try(Reader reader = new BufferedReader(new InputStreamReader(input))) {
             HeaderColumnNameMappingStrategy<StockUpdateRecord> strategy =
                     new HeaderColumnNameMappingStrategy<>();
             strategy.setType(StockUpdateRecord.class);
@@ -26,11 +29,26 @@ public class CsvStockUpdateParserService {
                             .withMappingStrategy(strategy)
                             .withIgnoreEmptyLine(true)
                             .withIgnoreLeadingWhiteSpace(true)
+                            .withThrowExceptions(false)
                             .build();
-            return csvToBean.parse();
 
+            int index = 0;
+            int rejectedSoFar = 0;
+            List<StockUpdateRecord> records = new ArrayList<>(chunkSize);
+            for (StockUpdateRecord record : csvToBean) {
+                records.add(record);
+                if (records.size() == chunkSize) {
+                    int rejected = csvToBean.getCapturedExceptions().size();
+                    consumer.accept(new StockUpdateChunk(index++, records, rejected - rejectedSoFar));
+                    rejectedSoFar = rejected;
+                    records = new ArrayList<>(chunkSize);
+                }
+            }
+
+            int rejected = csvToBean.getCapturedExceptions().size();
+            if (!records.isEmpty() || rejected > rejectedSoFar) {
+                consumer.accept(new StockUpdateChunk(index, records, rejected - rejectedSoFar));
+            }
         }
-
-
     }
 }
@@ -0,0 +1,10 @@
+package com.marouane.ecom.parser;
+
+import java.util.List;
+
+public record StockUpdateChunk(
+        int index,
+        List<StockUpdateRecord> records,
+        int rejectedRows
+) {
+}
@@ -1,14 +1,23 @@
 package com.marouane.ecom.payment;
 
+import com.marouane.ecom.common.CheckoutMetrics;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Service
+@RequiredArgsConstructor
 public class PaymentService {
 
+    private final CheckoutMetrics checkoutMetrics;
+
     public PaymentResult process(BigDecimal amount, String cardNumber){
+        return checkoutMetrics.record(CheckoutMetrics.Stage.PAYMENT, () -> charge(amount, cardNumber));
+    }
+
+    private PaymentResult charge(BigDecimal amount, String cardNumber) {
         boolean isSuccess = isCardValid(cardNumber);
 
         return new PaymentResult(
@@ -0,0 +1,7 @@
+package com.marouane.ecom.product;
+
+public interface CategoryCount {
+    String getCategory();
+
+    Long getCount();
+}
@@ -0,0 +1,4 @@
+package com.marouane.ecom.product;
+
+public record CategoryFacet(String category, long count) {
+}
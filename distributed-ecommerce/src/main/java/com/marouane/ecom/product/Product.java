@@ -47,6 +47,12 @@ public class Product {
 
     private BigDecimal price;
 
+    @JsonIgnore
+    @Column(name = "search_vector", insertable = false, updatable = false, columnDefinition =
+            "tsvector GENERATED ALWAYS AS (to_tsvector('simple', " +
+                    "coalesce(name, '') || ' ' || coalesce(category, '') || ' ' || coalesce(description, ''))) STORED")
+    private String searchVector;
+
 
 
 
@@ -0,0 +1,9 @@
+package com.marouane.ecom.product;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductBulkOperations {
+
+    Map<String, Long> insertIfAbsent(Collection<Product> products);
+}
@@ -0,0 +1,62 @@
+package com.marouane.ecom.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductBulkOperationsImpl implements ProductBulkOperations {
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO product (name, category, description, status, price, version, created_at, updated_at)
+            SELECT t.name, t.category, t.description, t.status, t.price, 0, now(), now()
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::numeric[])
+                AS t(name, category, description, status, price)
+            ORDER BY t.name
+            ON CONFLICT (name) DO NOTHING
+            RETURNING id, name
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    // One statement for the whole batch. Names that already exist, or that a concurrent transaction
+    // inserts first, are skipped rather than failing the batch and are absent from the result.
+    // Rows go in name order: an insert that meets another transaction's uncommitted row for the same
+    // name waits on it, and two batches taking overlapping names in opposite orders would deadlock.
+    @Override
+    public Map<String, Long> insertIfAbsent(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return Map.of();
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+                ps.setArray(1, connection.createArrayOf("varchar",
+                        products.stream().map(Product::getName).toArray()));
+                ps.setArray(2, connection.createArrayOf("varchar",
+                        products.stream().map(Product::getCategory).toArray()));
+                ps.setArray(3, connection.createArrayOf("varchar",
+                        products.stream().map(Product::getDescription).toArray()));
+                ps.setArray(4, connection.createArrayOf("varchar",
+                        products.stream().map(product -> product.getStatus().name()).toArray()));
+                ps.setArray(5, connection.createArrayOf("numeric",
+                        products.stream().map(Product::getPrice).toArray()));
+
+                Map<String, Long> ids = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString("name"), rs.getLong("id"));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+}
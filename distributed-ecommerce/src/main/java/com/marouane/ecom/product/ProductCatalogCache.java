@@ -0,0 +1,89 @@
+package com.marouane.ecom.product;
+
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationListener;
+import com.marouane.ecom.common.PageResponse;
+import com.marouane.ecom.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for catalog reads: single products by id and listing pages by normalized query.
+ * Entries are stock-free snapshots; callers overlay current stock on every read.
+ * <p>
+ * Invalidations arrive after the write commits. A load only lands in the cache if no invalidation
+ * happened while it was running, so a reader that saw a row before the commit can never re-cache it
+ * after the write's eviction.
+ */
+@Component
+public class ProductCatalogCache implements CacheInvalidationListener {
+
+    private final Cache products;
+    private final Cache productQueries;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductCatalogCache(CacheManager cacheManager) {
+        this.products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        this.productQueries = cacheManager.getCache(CacheConfig.PRODUCT_QUERIES);
+    }
+
+
+    public ProductResponse getProduct(Long productId, Supplier<ProductResponse> loader) {
+        return readThrough(products, productId, loader);
+    }
+
+    public PageResponse<ProductResponse> getPage(String queryKey, Supplier<PageResponse<ProductResponse>> loader) {
+        return readThrough(productQueries, queryKey, loader);
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidation invalidation) {
+        boolean product = CacheConfig.PRODUCTS.equals(invalidation.cache());
+        if (!product && !CacheConfig.PRODUCT_QUERIES.equals(invalidation.cache())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            if (product && invalidation.key() == null) {
+                products.clear();
+            } else if (product) {
+                products.evict(Long.valueOf(invalidation.key()));
+            }
+            // Any product write can move it into or out of any listing
+            productQueries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <T> T readThrough(Cache cache, Object key, Supplier<T> loader) {
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        long loadedAt = generation.get();
+        T loaded = loader.get();
+
+        lock.readLock().lock();
+        try {
+            if (generation.get() == loadedAt) {
+                cache.put(key, loaded);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return loaded;
+    }
+}
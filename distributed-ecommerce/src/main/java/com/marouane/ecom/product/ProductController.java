@@ -60,9 +60,14 @@ public class ProductController {
             @RequestParam(required = false) String sortDir,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) ProductStatus status) {
-        PageResponse<ProductResponse> productPageResponse = productService.getAllProducts(page, size, sortBy, sortDir, search, category, status);
-        return ResponseEntity.ok(productPageResponse);
+            @RequestParam(required = false) ProductStatus status,
+            @RequestParam(required = false) String cursor) {
+        try {
+            PageResponse<ProductResponse> productPageResponse = productService.getAllProducts(page, size, sortBy, sortDir, search, category, status, cursor);
+            return ResponseEntity.ok(productPageResponse);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
 
@@ -80,6 +85,20 @@ public class ProductController {
     }
 
 
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(productService.searchProducts(q, category, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         ProductResponse productResponse = productService.getProductById(id);
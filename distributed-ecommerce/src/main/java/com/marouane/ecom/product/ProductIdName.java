@@ -0,0 +1,4 @@
+package com.marouane.ecom.product;
+
+public record ProductIdName(Long id, String name) {
+}
@@ -5,6 +5,9 @@ import com.marouane.ecom.inventory.InventoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 @RequiredArgsConstructor
 public class ProductMapper {
@@ -12,7 +15,53 @@ public class ProductMapper {
 
 
     public ProductResponse toProductResponse(Product product) {
+        return toProductResponse(product, inventoryService.getStockForProduct(product.getId()));
+    }
+
+    public List<ProductResponse> toProductResponses(List<Product> products) {
+        Map<Long, Integer> stock = inventoryService.getStockForProducts(
+                products.stream().map(Product::getId).toList());
+
+        return products.stream()
+                .map(product -> toProductResponse(product, stock.getOrDefault(product.getId(), 0)))
+                .toList();
+    }
+
+    // Stock-free snapshot for the catalog cache; stock changes far more often than the product does
+    public ProductResponse toCatalogResponse(Product product) {
+        return toProductResponse(product, null);
+    }
+
+    public ProductResponse withCurrentStock(ProductResponse cached) {
+        return withStock(cached, inventoryService.getStockForProduct(cached.getId()));
+    }
+
+    public List<ProductResponse> withCurrentStock(List<ProductResponse> cached) {
+        Map<Long, Integer> stock = inventoryService.getStockForProducts(
+                cached.stream().map(ProductResponse::getId).toList());
+
+        return cached.stream()
+                .map(response -> withStock(response, stock.getOrDefault(response.getId(), 0)))
+                .toList();
+    }
+
+    // Cached instances are shared between requests, so stock goes on a copy
+    private ProductResponse withStock(ProductResponse cached, Integer stock) {
+        return ProductResponse.builder()
+                .id(cached.getId())
+                .name(cached.getName())
+                .description(cached.getDescription())
+                .category(cached.getCategory())
+                .price(cached.getPrice())
+                .priceSince(cached.getPriceSince())
+                .status(cached.getStatus())
+                .createdAt(cached.getCreatedAt())
+                .updatedAt(cached.getUpdatedAt())
+                .stock(stock)
+                .build();
+    }
 
+    private ProductResponse toProductResponse(Product product, Integer stock) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -22,7 +71,7 @@ public class ProductMapper {
                 .status(product.getStatus())
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
-                .stock(inventoryService.getStockForProduct(product.getId()))
+                .stock(stock)
                 .build();
     }
 }
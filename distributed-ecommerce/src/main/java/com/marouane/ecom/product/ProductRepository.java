@@ -7,9 +7,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductBulkOperations {
 
     Page<Product> findAllByStatus(ProductStatus status, Pageable pageable);
 
@@ -28,9 +30,38 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
     Optional<Product> findByName(String productName);
 
+    @Query("SELECT new com.marouane.ecom.product.ProductIdName(p.id, p.name) FROM Product p WHERE p.name IN :names")
+    List<ProductIdName> findIdsByNameIn(@Param("names") Collection<String> names);
+
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "2000"))
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithLock(@Param("id") Long id);
+
+
+    @Query(value = """
+    SELECT p.* FROM product p
+    WHERE p.search_vector @@ to_tsquery('simple', :query)
+      AND p.status = 'ACTIVE'
+      AND (CAST(:category AS varchar) IS NULL OR p.category = :category)
+    ORDER BY ts_rank(p.search_vector, to_tsquery('simple', :query)) DESC, p.id
+    LIMIT :limit OFFSET :offset
+""", nativeQuery = true)
+    List<Product> searchRanked(
+            @Param("query") String query,
+            @Param("category") String category,
+            @Param("limit") int limit,
+            @Param("offset") long offset
+    );
+
+    @Query(value = """
+    SELECT p.category AS category, COUNT(*) AS count
+    FROM product p
+    WHERE p.search_vector @@ to_tsquery('simple', :query)
+      AND p.status = 'ACTIVE'
+    GROUP BY p.category
+    ORDER BY COUNT(*) DESC
+""", nativeQuery = true)
+    List<CategoryCount> searchFacets(@Param("query") String query);
 }
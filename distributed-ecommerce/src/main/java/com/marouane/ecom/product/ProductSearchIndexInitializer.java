@@ -0,0 +1,22 @@
+package com.marouane.ecom.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Hibernate's schema update can add the generated search_vector column but cannot express a GIN index.
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndex() {
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector)"
+        );
+    }
+}
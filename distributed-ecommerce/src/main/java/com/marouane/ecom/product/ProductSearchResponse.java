@@ -0,0 +1,16 @@
+package com.marouane.ecom.product;
+
+import com.marouane.ecom.common.PageResponse;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResponse {
+    private PageResponse<ProductResponse> results;
+    private List<CategoryFacet> facets;
+}
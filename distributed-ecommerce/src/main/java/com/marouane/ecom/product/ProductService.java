@@ -1,11 +1,18 @@
 package com.marouane.ecom.product;
 
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationBus;
+import com.marouane.ecom.common.KeysetPaging;
 import com.marouane.ecom.common.PageResponse;
+import com.marouane.ecom.config.CacheConfig;
 import com.marouane.ecom.exception.ProductCreationException;
 import com.marouane.ecom.exception.ProductDeletionException;
 import com.marouane.ecom.exception.ProductNotFoundException;
+import com.marouane.ecom.inventory.Inventory;
 import com.marouane.ecom.inventory.InventoryService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
@@ -16,8 +23,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.data.domain.Pageable;import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +35,12 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final InventoryService inventoryService;
+    private final ProductCatalogCache catalogCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     @Transactional
     public Product createProduct(ProductRequest request) {
-        return productRepository.save(
+        Product product = productRepository.save(
                 Product.builder()
                         .name(request.getProductName())
                         .description(request.getDescription())
@@ -38,8 +50,8 @@ public class ProductService {
                         .build()
         );
 
-
-
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.PRODUCTS, product.getId()));
+        return product;
     }
 
     @Transactional
@@ -53,6 +65,7 @@ public class ProductService {
         product.setStatus(request.getStatus());
         product.setPrice(request.getPrice());
 
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.PRODUCTS, productId));
         return productRepository.save(product);
     }
 
@@ -69,6 +82,7 @@ public class ProductService {
 
             product.setStatus(ProductStatus.DISCONTINUED);
             productRepository.save(product);
+            cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.PRODUCTS, productId));
         } catch (PessimisticLockingFailureException e) {
             throw new ConcurrentModificationException(
                     "Product is currently being modified by another transaction. Please try again.");
@@ -90,6 +104,7 @@ public class ProductService {
 
             inventoryService.deleteByProductId(productId);
             productRepository.delete(product);
+            cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.PRODUCTS, productId));
         } catch (PessimisticLockingFailureException e) {
             throw new ConcurrentModificationException(
                     "Product is currently being modified by another transaction. Please try again.");
@@ -102,7 +117,7 @@ public class ProductService {
             int page, int size,
             String sortBy, String sortDir,
             String search, String category,
-            ProductStatus status) {
+            ProductStatus status, String cursor) {
 
         // Create Sort object
         Sort sort = Sort.by("createdAt").descending(); // default
@@ -115,12 +130,10 @@ public class ProductService {
         // Build specification for filtering
         Specification<Product> spec = Specification.where(null);
 
-        if (search != null && !search.isEmpty()) {
+        String tsQuery = toPrefixTsQuery(search);
+        if (!tsQuery.isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("name")), "%" + search.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("description")), "%" + search.toLowerCase() + "%")
-                    )
+                    cb.isTrue(cb.function("fts_match", Boolean.class, root.get("searchVector"), cb.literal(tsQuery)))
             );
         }
 
@@ -136,29 +149,68 @@ public class ProductService {
             );
         }
 
-        Page<Product> productPage = productRepository.findAll(spec, pageable);
+        if (cursor != null) {
+            return KeysetPaging.scroll(productRepository, spec, sort, size, cursor, productMapper::toProductResponses);
+        }
 
-        List<ProductResponse> responses = productPage.getContent().stream()
-                .map(productMapper::toProductResponse)
-                .toList();
+        Specification<Product> filter = spec;
+        String queryKey = queryKey("all", pageable, tsQuery, category, status);
+        return withCurrentStock(catalogCache.getPage(queryKey, () ->
+                toCatalogPage(productRepository.findAll(filter, pageable))));
+    }
 
-        return new PageResponse<>(
-                responses,
-                productPage.getNumber(),
-                productPage.getSize(),
-                (int) productPage.getTotalElements(),
-                productPage.getTotalPages(),
-                productPage.isFirst(),
-                productPage.isLast()
+    public ProductSearchResponse searchProducts(String search, String category, int page, int size) {
+        // Same bounds as the other listings: PageRequest rejects a negative page or a size below one
+        Pageable pageable = PageRequest.of(page, size);
+        String tsQuery = toPrefixTsQuery(search);
+        if (tsQuery.isEmpty()) {
+            return new ProductSearchResponse(new PageResponse<>(List.of(), page, size, 0, 0, true, true), List.of());
+        }
+
+        List<CategoryFacet> facets = productRepository.searchFacets(tsQuery).stream()
+                .map(facet -> new CategoryFacet(facet.getCategory(), facet.getCount()))
+                .toList();
+        int total = (int) facets.stream()
+                .filter(facet -> category == null || category.equals(facet.category()))
+                .mapToLong(CategoryFacet::count)
+                .sum();
+        int totalPages = (int) Math.ceil((double) total / size);
+
+        List<Product> products = productRepository.searchRanked(tsQuery, category, size, pageable.getOffset());
+
+        return new ProductSearchResponse(
+                new PageResponse<>(
+                        productMapper.toProductResponses(products),
+                        page,
+                        size,
+                        total,
+                        totalPages,
+                        page == 0,
+                        page >= totalPages - 1
+                ),
+                facets
         );
     }
 
-    public ProductResponse getProductById(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + productId));
+    // Every word of the input becomes a prefix term ("wire ear" -> "wire:* & ear:*"); anything that is
+    // not a letter or digit is dropped, so user input can never produce tsquery syntax.
+    private static String toPrefixTsQuery(String search) {
+        if (search == null || search.isBlank()) {
+            return "";
+        }
+        return Arrays.stream(search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .limit(8)
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
 
+    public ProductResponse getProductById(Long productId) {
+        ProductResponse cached = catalogCache.getProduct(productId, () -> productMapper.toCatalogResponse(
+                productRepository.findById(productId)
+                        .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + productId))));
 
-        return productMapper.toProductResponse(product);
+        return productMapper.withCurrentStock(cached);
     }
 
     public long countAllProducts() {
@@ -179,11 +231,7 @@ public class ProductService {
 
         Page<Product> productPage = productRepository.findProductsWithoutInventory(pageable);
 
-        List<ProductResponse> content = productPage
-                .getContent()
-                .stream()
-                .map(productMapper::toProductResponse)
-                .toList();
+        List<ProductResponse> content = productMapper.toProductResponses(productPage.getContent());
 
         return new PageResponse<>(
                 content,
@@ -218,12 +266,10 @@ public class ProductService {
                 (root, query, cb) -> cb.equal(root.get("status"), ProductStatus.ACTIVE)
         );
 
-        if (search != null && !search.isEmpty()) {
+        String tsQuery = toPrefixTsQuery(search);
+        if (!tsQuery.isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("name")), "%" + search.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("description")), "%" + search.toLowerCase() + "%")
-                    )
+                    cb.isTrue(cb.function("fts_match", Boolean.class, root.get("searchVector"), cb.literal(tsQuery)))
             );
         }
 
@@ -233,28 +279,57 @@ public class ProductService {
             );
         }
 
-        // First get all active products that match filters
-        Page<Product> activeProducts = productRepository.findAll(spec, pageable);
+        // Only products with stock left after reservations, decided in the same query so pages are full
+        spec = spec.and((root, query, cb) -> {
+            Subquery<Integer> inStock = query.subquery(Integer.class);
+            Root<Inventory> inventory = inStock.from(Inventory.class);
+            inStock.select(cb.literal(1))
+                    .where(
+                            cb.equal(inventory.get("product"), root),
+                            cb.gt(cb.diff(inventory.get("totalQuantity"), inventory.<Integer>get("totalReserved")), 0)
+                    );
+            return cb.exists(inStock);
+        });
+
+        // Not cached: membership follows stock, and every reservation or stock write would have to clear
+        // PRODUCT_QUERIES for the listings that do not depend on it
+        return withCurrentStock(toCatalogPage(productRepository.findAll(spec, pageable)));
+    }
 
-        // Then filter out products with no inventory
-        List<Product> availableProducts = activeProducts.getContent().stream()
-                .filter(product -> inventoryService.isInStock(product.getId()))
-                .toList();
+    // Equivalent requests ("All" vs no category, different spellings of the same search) share an entry
+    private static String queryKey(String listing, Pageable pageable, String tsQuery, String category,
+                                   ProductStatus status) {
+        return String.join("|",
+                listing,
+                String.valueOf(pageable.getPageNumber()),
+                String.valueOf(pageable.getPageSize()),
+                pageable.getSort().toString(),
+                tsQuery,
+                category == null || category.equals("All") ? "" : category,
+                status == null ? "" : status.name());
+    }
 
-        // Convert to response DTOs
-        List<ProductResponse> responses = availableProducts.stream()
-                .map(productMapper::toProductResponse)
-                .toList();
+    private PageResponse<ProductResponse> toCatalogPage(Page<Product> productPage) {
+        return new PageResponse<>(
+                productPage.getContent().stream().map(productMapper::toCatalogResponse).toList(),
+                productPage.getNumber(),
+                productPage.getSize(),
+                (int) productPage.getTotalElements(),
+                productPage.getTotalPages(),
+                productPage.isFirst(),
+                productPage.isLast()
+        );
+    }
 
-        // Create custom page response since we did post-filtering
+    private PageResponse<ProductResponse> withCurrentStock(PageResponse<ProductResponse> cached) {
         return new PageResponse<>(
-                responses,
-                activeProducts.getNumber(),
-                activeProducts.getSize(),
-                availableProducts.size(),
-                (int) Math.ceil((double) availableProducts.size() / size),
-                activeProducts.isFirst(),
-                activeProducts.getNumber() >= (int) Math.ceil((double) availableProducts.size() / size) - 1
+                productMapper.withCurrentStock(cached.getContent()),
+                cached.getNumber(),
+                cached.getSize(),
+                cached.getTotalElements(),
+                cached.getTotalPages(),
+                cached.isFirst(),
+                cached.isLast()
         );
     }
 
@@ -0,0 +1,106 @@
+package com.marouane.ecom.profiling;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements report to the calling thread's {@link QueryProfile}.
+ * With no active profile the proxies only pass calls through, so statements run outside a
+ * request (schedulers, startup) cost one extra reflective call each.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    public ProfilingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection(), this::onConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password), this::onConnection);
+    }
+
+
+    private Object onConnection(Object connection, Method method, Object[] args) throws Throwable {
+        Object result = invoke(connection, method, args);
+        if (result instanceof Statement statement) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            return proxy(statementType(statement), statement, (target, m, a) -> onStatement(target, sql, m, a));
+        }
+        return result;
+    }
+
+    private Object onStatement(Object statement, String preparedSql, Method method, Object[] args) throws Throwable {
+        QueryProfile profile = QueryProfiler.current();
+        if (profile == null) {
+            return invoke(statement, method, args);
+        }
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            long startedAt = System.nanoTime();
+            try {
+                Object result = invoke(statement, method, args);
+                return result instanceof ResultSet resultSet ? profiled(resultSet) : result;
+            } finally {
+                profile.recordStatement(sql, System.nanoTime() - startedAt);
+            }
+        }
+        Object result = invoke(statement, method, args);
+        return name.equals("getResultSet") && result instanceof ResultSet resultSet ? profiled(resultSet) : result;
+    }
+
+    private static ResultSet profiled(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                QueryProfile profile = QueryProfiler.current();
+                if (profile != null) {
+                    profile.recordRow();
+                }
+            }
+            return result;
+        });
+    }
+
+    private static Class<? extends Statement> statementType(Statement statement) {
+        if (statement instanceof CallableStatement) {
+            return CallableStatement.class;
+        }
+        return statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Interception interception) {
+        InvocationHandler handler = (proxy, method, args) -> interception.apply(target, method, args);
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface Interception {
+        Object apply(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
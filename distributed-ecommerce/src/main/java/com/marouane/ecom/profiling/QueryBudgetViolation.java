@@ -0,0 +1,16 @@
+package com.marouane.ecom.profiling;
+
+import java.time.Instant;
+import java.util.List;
+
+public record QueryBudgetViolation(
+        Instant at,
+        String method,
+        String uri,
+        String endpoint,
+        int statements,
+        long rows,
+        double jdbcMillis,
+        List<String> mostRepeated
+) {
+}
@@ -0,0 +1,61 @@
+package com.marouane.ecom.profiling;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// JDBC work done by one thread between QueryProfiler.start() and stop(); only that thread writes to it.
+public class QueryProfile {
+
+    private final QueryProfile previous;
+    private final Map<String, Integer> statementsBySql = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    QueryProfile(QueryProfile previous) {
+        this.previous = previous;
+    }
+
+    void recordStatement(String sql, long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+        statementsBySql.merge(sql == null ? "<batch>" : sql, 1, Integer::sum);
+        if (previous != null) {
+            previous.recordStatement(sql, nanos);
+        }
+    }
+
+    void recordRow() {
+        rows++;
+        if (previous != null) {
+            previous.recordRow();
+        }
+    }
+
+    QueryProfile previous() {
+        return previous;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    // Repeats of one statement are what an N+1 looks like, so the most repeated come first.
+    public List<String> mostRepeated(int limit) {
+        return statementsBySql.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> entry.getValue() + "x " + entry.getKey())
+                .toList();
+    }
+}
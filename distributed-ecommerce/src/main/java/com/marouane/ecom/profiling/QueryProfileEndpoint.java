@@ -0,0 +1,20 @@
+package com.marouane.ecom.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+// Most recent requests over the statement budget, newest first.
+@Endpoint(id = "queryprofile")
+@RequiredArgsConstructor
+public class QueryProfileEndpoint {
+
+    private final QueryProfilingFilter queryProfilingFilter;
+
+    @ReadOperation
+    public List<QueryBudgetViolation> violations() {
+        return queryProfilingFilter.recentViolations();
+    }
+}
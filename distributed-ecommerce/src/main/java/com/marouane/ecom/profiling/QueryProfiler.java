@@ -0,0 +1,33 @@
+package com.marouane.ecom.profiling;
+
+/**
+ * Thread-bound query profiles. While a profile is active on a thread, every statement that thread runs
+ * through a {@link ProfilingDataSource} connection is counted against it, and against any enclosing
+ * profile. JDBC work handed off to other threads (async executors, the cache invalidation listener)
+ * is not attributed to the caller.
+ */
+public final class QueryProfiler {
+
+    private static final ThreadLocal<QueryProfile> CURRENT = new ThreadLocal<>();
+
+    private QueryProfiler() {
+    }
+
+    public static QueryProfile start() {
+        QueryProfile profile = new QueryProfile(CURRENT.get());
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static void stop(QueryProfile profile) {
+        if (profile.previous() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(profile.previous());
+        }
+    }
+
+    static QueryProfile current() {
+        return CURRENT.get();
+    }
+}
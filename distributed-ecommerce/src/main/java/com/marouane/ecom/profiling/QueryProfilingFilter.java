@@ -0,0 +1,106 @@
+package com.marouane.ecom.profiling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the JDBC work of each request and records it per endpoint (the matched route pattern):
+ * {@code http.server.sql.statements}, {@code http.server.sql.rows} and {@code http.server.sql.time}.
+ * Requests over the statement budget are also counted in {@code http.server.sql.budget.exceeded} and
+ * kept, with their most repeated statements, for the {@code queryprofile} actuator endpoint.
+ */
+public class QueryProfilingFilter extends OncePerRequestFilter {
+
+    private static final int REPEATED_STATEMENTS_KEPT = 5;
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final int violationsKept;
+    private final Deque<QueryBudgetViolation> violations = new ArrayDeque<>();
+
+    public QueryProfilingFilter(MeterRegistry meterRegistry, int statementBudget, int violationsKept) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.violationsKept = violationsKept;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NotNull HttpServletRequest request,
+            @NotNull HttpServletResponse response,
+            @NotNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        QueryProfile profile = QueryProfiler.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryProfiler.stop(profile);
+            record(request, profile);
+        }
+    }
+
+    public List<QueryBudgetViolation> recentViolations() {
+        synchronized (violations) {
+            return new ArrayList<>(violations);
+        }
+    }
+
+
+    private void record(HttpServletRequest request, QueryProfile profile) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Unmatched paths stay out of the tags, or every probed URL would become its own series
+        String endpoint = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.sql.statements")
+                .tags("method", method, "uri", endpoint)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(profile.statements());
+        DistributionSummary.builder("http.server.sql.rows")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(profile.rows());
+        Timer.builder("http.server.sql.time")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(profile.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (profile.statements() <= statementBudget) {
+            return;
+        }
+        meterRegistry.counter("http.server.sql.budget.exceeded", "method", method, "uri", endpoint).increment();
+        QueryBudgetViolation violation = new QueryBudgetViolation(
+                Instant.now(),
+                method,
+                request.getRequestURI(),
+                endpoint,
+                profile.statements(),
+                profile.rows(),
+                profile.jdbcNanos() / 1e6,
+                profile.mostRepeated(REPEATED_STATEMENTS_KEPT)
+        );
+        synchronized (violations) {
+            violations.addFirst(violation);
+            while (violations.size() > violationsKept) {
+                violations.removeLast();
+            }
+        }
+    }
+}
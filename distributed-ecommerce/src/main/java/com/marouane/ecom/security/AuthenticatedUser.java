@@ -0,0 +1,25 @@
+package com.marouane.ecom.security;
+
+import com.marouane.ecom.user.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+// What the rest of the app sees of the caller. Load the User by id where an entity is really needed.
+public record AuthenticatedUser(
+        Integer id,
+        String email,
+        Collection<? extends GrantedAuthority> authorities
+) implements Principal {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), List.copyOf(user.getAuthorities()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,5 +1,7 @@
 package com.marouane.ecom.security;
 
+import com.marouane.ecom.common.CheckoutMetrics;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,8 +10,10 @@ import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import com.marouane.ecom.user.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,7 +25,13 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final CheckoutMetrics checkoutMetrics;
+
+    // Stateless: the principal comes straight from the verified claims, so role changes and deleted
+    // users only take effect once their tokens expire.
+    @Value("${application.security.jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -35,34 +45,47 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        checkoutMetrics.record(CheckoutMetrics.Stage.AUTHENTICATION, () -> authenticate(request, authHeader.substring(7)));
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, String jwt) {
+        final Claims claims = jwtService.verify(jwt);
+        final String userEmail = claims.getSubject();
 
         if(userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            AuthenticatedUser principal = statelessPrincipal ? jwtService.toPrincipal(claims) : null;
+            if (principal == null) {
+                principal = loadPrincipal(claims);
+            }
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.authorities()
                 );
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
-
         }
-        filterChain.doFilter(request, response);
-
+    }
 
+    // Tokens without a uid claim, or all tokens with the stateless principal off, go through the user row.
+    // A token whose user no longer exists leaves the request unauthenticated.
+    private AuthenticatedUser loadPrincipal(Claims claims) {
+        try {
+            UserDetails userDetails = principalCache.loadUserByUsername(claims.getSubject());
+            return jwtService.isTokenValid(claims, userDetails) ? AuthenticatedUser.of((User) userDetails) : null;
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,75 @@
+package com.marouane.ecom.security;
+
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationListener;
+import com.marouane.ecom.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Short-lived cache of the principals {@link JwtFilter} puts into the security context, keyed by
+ * email. Only used for token requests; logins always go to the database.
+ * <p>
+ * A load is only cached if no invalidation arrived while it ran, so a user updated or deleted
+ * mid-load is not re-cached from the old row.
+ */
+@Component
+public class PrincipalCache implements CacheInvalidationListener {
+
+    private final UserDetailsService userDetailsService;
+    private final Cache users;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PrincipalCache(UserDetailsService userDetailsService, CacheManager cacheManager) {
+        this.userDetailsService = userDetailsService;
+        this.users = cacheManager.getCache(CacheConfig.USERS);
+    }
+
+
+    public UserDetails loadUserByUsername(String email) {
+        UserDetails cached = users.get(email, UserDetails.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        UserDetails loaded = userDetailsService.loadUserByUsername(email);
+
+        lock.readLock().lock();
+        try {
+            if (generation.get() == loadedAt) {
+                users.put(email, loaded);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return loaded;
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidation invalidation) {
+        if (!CacheConfig.USERS.equals(invalidation.cache())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            if (invalidation.key() == null) {
+                users.clear();
+            } else {
+                users.evict(invalidation.key());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -14,14 +14,19 @@ public class CustomerController {
     private final CustomerService customerService;
 
     @GetMapping
-    public PageResponse<CustomerDTO> getAllCustomers(
+    public ResponseEntity<PageResponse<CustomerDTO>> getAllCustomers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String sortDir,
-            @RequestParam(required = false) String search) {
-        return customerService.getAllCustomers(
-                page, size, sortBy, sortDir, search);
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(customerService.getAllCustomers(
+                    page, size, sortBy, sortDir, search, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
 
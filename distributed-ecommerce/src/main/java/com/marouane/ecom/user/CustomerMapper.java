@@ -1,10 +1,13 @@
 package com.marouane.ecom.user;
 
+import com.marouane.ecom.order.CustomerOrderStats;
 import com.marouane.ecom.order.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -15,14 +18,27 @@ public class CustomerMapper {
     private final PasswordEncoder passwordEncoder;
 
     public CustomerDTO mapToCustomerDTO(User user) {
+        return mapToCustomerDTOs(List.of(user)).get(0);
+    }
+
+    public List<CustomerDTO> mapToCustomerDTOs(List<User> users) {
+        Map<Integer, CustomerOrderStats> stats = orderService.getStatsForUsers(
+                users.stream().map(User::getId).toList());
+
+        return users.stream()
+                .map(user -> toCustomerDTO(user, stats.get(user.getId())))
+                .toList();
+    }
+
+    private CustomerDTO toCustomerDTO(User user, CustomerOrderStats stats) {
         return CustomerDTO.builder()
                 .id(user.getId())
                 .firstName(user.getFirstName())
                 .lastName(user.getLastName())
                 .email(user.getEmail())
                 .registrationDate(user.getCreatedAt())
-                .totalOrders(orderService.countByUser(user))
-                .totalSpent(orderService.getTotalSpentByUser(user))
+                .totalOrders(stats.orderCount())
+                .totalSpent(stats.totalSpent())
                 .active(user.isEnabled())
                 .roles(user.getRoles().stream()
                         .map(Role::getName)
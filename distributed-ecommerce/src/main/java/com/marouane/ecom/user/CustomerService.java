@@ -1,6 +1,10 @@
 package com.marouane.ecom.user;
 
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.CacheInvalidationBus;
+import com.marouane.ecom.common.KeysetPaging;
 import com.marouane.ecom.common.PageResponse;
+import com.marouane.ecom.config.CacheConfig;
 import com.marouane.ecom.order.OrderRepository;
 import com.marouane.ecom.order.OrderService;
 import com.marouane.ecom.product.CustomerCountDTO;
@@ -26,12 +30,13 @@ public class CustomerService {
     private final CustomerMapper customerMapper;
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
 
     public PageResponse<CustomerDTO> getAllCustomers(
             int page, int size,
             String sortBy, String sortDir,
-            String search) {
+            String search, String cursor) {
 
         // Create Sort object
         Sort sort = Sort.by("createdAt").descending();
@@ -58,11 +63,14 @@ public class CustomerService {
 
 
 
+        if (cursor != null) {
+            return KeysetPaging.scroll(userRepository, spec, sort, size, cursor,
+                    customerMapper::mapToCustomerDTOs);
+        }
+
         Page<User> userPage = userRepository.findAll(spec, pageable);
 
-        List<CustomerDTO> responses = userPage.getContent().stream()
-                .map(customerMapper::mapToCustomerDTO)
-                .toList();
+        List<CustomerDTO> responses = customerMapper.mapToCustomerDTOs(userPage.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -132,12 +140,15 @@ public class CustomerService {
             throw new IllegalArgumentException("Email already exists");
         }
 
+        String previousEmail = existingCustomer.getEmail();
         existingCustomer.setFirstName(customerDTO.getFirstName());
         existingCustomer.setLastName(customerDTO.getLastName());
         existingCustomer.setEmail(customerDTO.getEmail());
 
 
         User updatedCustomer = userRepository.save(existingCustomer);
+        // Users are cached by email, the JWT subject
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.USERS, previousEmail));
 
 
         return customerMapper.mapToCustomerDTO(updatedCustomer);
@@ -146,12 +157,12 @@ public class CustomerService {
 
 
     public void deleteCustomer(Integer customerId) {
-        if (!userRepository.existsById(customerId)) {
-            throw new IllegalArgumentException("Customer not found");
-        }
+        User customer = userRepository.findById(customerId)
+                .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
 
 
-        userRepository.deleteById(customerId);
+        userRepository.delete(customer);
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.USERS, customer.getEmail()));
     }
 
 
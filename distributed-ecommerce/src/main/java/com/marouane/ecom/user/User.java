@@ -3,6 +3,7 @@ package com.marouane.ecom.user;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -33,7 +34,9 @@ public class User implements UserDetails, Principal {
     private String phone;
 
 
+    // Loaded for a whole page of users at once instead of one select per user
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     private List<Role> roles;
 
     @Column(name = "created_at", updatable = false)
@@ -0,0 +1,132 @@
+package com.marouane.ecom.auth;
+
+import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.user.Role;
+import com.marouane.ecom.user.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Buckets live as long as the context, so every test uses its own client address and account.
+@TestPropertySource(properties = {
+        "application.security.login-rate.ip.capacity=3",
+        "application.security.login-rate.account.capacity=2",
+        "application.security.password-hashing.threads=1",
+        "application.security.password-hashing.queue-capacity=1"
+})
+class AuthenticationThrottlingIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor passwordHashingExecutor;
+
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM _user_roles");
+        jdbcTemplate.execute("DELETE FROM _user");
+        jdbcTemplate.execute("DELETE FROM role");
+        roleRepository.save(Role.builder().name("USER").build());
+    }
+
+    @Test
+    void register_shouldThrottlePerForwardedClientAddress() {
+        String client = "203.0.113.10";
+        for (int i = 0; i < 3; i++) {
+            assertThat(register(client, uniqueEmail()).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        }
+
+        ResponseEntity<Void> throttled = register(client, uniqueEmail());
+        assertThat(throttled.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // The IP bucket refills 60 per minute
+        assertThat(throttled.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        // Another client behind the same load balancer still has its own bucket
+        assertThat(register("203.0.113.11", uniqueEmail()).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+    }
+
+    @Test
+    void authenticate_shouldThrottlePerAccountAcrossClientAddresses() {
+        String email = uniqueEmail();
+        assertThat(register("198.51.100.1", email).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+
+        assertThat(authenticate("198.51.100.2", email).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(authenticate("198.51.100.3", email).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<AuthenticationResponse> throttled = authenticate("198.51.100.4", email);
+        assertThat(throttled.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // The account bucket refills 5 per minute, one token every 12 seconds
+        assertThat(Integer.parseInt(throttled.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isBetween(11, 12);
+    }
+
+    @Test
+    void register_shouldBeRejectedWhenPasswordHashingIsSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // One task on the only hashing thread and one in the queue leave no room for the request's hash
+            for (int i = 0; i < 2; i++) {
+                passwordHashingExecutor.submit(() -> {
+                    release.await(30, TimeUnit.SECONDS);
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            ResponseEntity<Void> response = register("192.0.2.20", uniqueEmail());
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotBlank();
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(5);
+        } finally {
+            release.countDown();
+        }
+    }
+
+
+    private ResponseEntity<Void> register(String clientAddress, String email) {
+        RegistrationRequest request = new RegistrationRequest("first", "last", email, "password5555");
+        return restTemplate.postForEntity("/api/auth/register",
+                new HttpEntity<>(request, forwardedFor(clientAddress)), Void.class);
+    }
+
+    private ResponseEntity<AuthenticationResponse> authenticate(String clientAddress, String email) {
+        AuthenticationRequest request = new AuthenticationRequest(email, "password5555");
+        return restTemplate.postForEntity("/api/auth/authenticate",
+                new HttpEntity<>(request, forwardedFor(clientAddress)), AuthenticationResponse.class);
+    }
+
+    // The test client connects over loopback, which Tomcat trusts as a proxy hop
+    private static HttpHeaders forwardedFor(String clientAddress) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientAddress);
+        return headers;
+    }
+
+    private static String uniqueEmail() {
+        return "user-" + UUID.randomUUID() + "@gmail.com";
+    }
+}
@@ -1,9 +1,13 @@
 package com.marouane.ecom.common;
 
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -11,6 +15,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Every test logs in again from the same address and account; subclasses can override these inline properties
+@TestPropertySource(properties = {
+        "application.security.login-rate.ip.capacity=100000",
+        "application.security.login-rate.account.capacity=100000"
+})
 public class BaseIntegrationTest {
 
     @Container
@@ -24,5 +33,16 @@ public class BaseIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("spring.datasource.username", postgres::getUsername);
+        // Needed by QueryBudget
+        registry.add("application.profiling.queries.enabled", () -> true);
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Tests wipe tables with plain SQL, which no cache hears about
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 }
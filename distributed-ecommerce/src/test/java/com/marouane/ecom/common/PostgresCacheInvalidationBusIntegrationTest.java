@@ -0,0 +1,120 @@
+package com.marouane.ecom.common;
+
+import com.marouane.ecom.config.CacheConfig;
+import com.marouane.ecom.product.ProductCatalogCache;
+import com.marouane.ecom.product.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The application context is one node; the test starts a second bus with its own catalog cache on the
+// same database and checks what that node hears.
+@TestPropertySource(properties = {
+        "application.cache.invalidation.transport=postgres",
+        "application.cache.invalidation.poll-timeout-ms=100",
+        "application.cache.invalidation.reconnect-delay-ms=100"
+})
+class PostgresCacheInvalidationBusIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private final BlockingQueue<CacheInvalidation> otherNodeReceived = new LinkedBlockingQueue<>();
+    private final SimpleMeterRegistry otherNodeMeters = new SimpleMeterRegistry();
+    private ProductCatalogCache otherNodeCatalog;
+    private PostgresCacheInvalidationBus otherNode;
+
+
+    @BeforeEach
+    void startOtherNode() throws InterruptedException {
+        otherNodeCatalog = new ProductCatalogCache(
+                new ConcurrentMapCacheManager(CacheConfig.PRODUCTS, CacheConfig.PRODUCT_QUERIES));
+        // The queue comes after the catalog, so an invalidation taken from it has already been applied
+        otherNode = new PostgresCacheInvalidationBus(
+                jdbcTemplate, List.of(otherNodeCatalog, otherNodeReceived::add), otherNodeMeters);
+        ReflectionTestUtils.setField(otherNode, "url", url);
+        ReflectionTestUtils.setField(otherNode, "username", username);
+        ReflectionTestUtils.setField(otherNode, "password", password);
+        ReflectionTestUtils.setField(otherNode, "pollTimeoutMs", 100);
+        ReflectionTestUtils.setField(otherNode, "reconnectDelayMs", 100L);
+        otherNode.start();
+        awaitOtherNodeConnected();
+    }
+
+    @AfterEach
+    void stopOtherNode() throws InterruptedException {
+        otherNode.stop();
+    }
+
+    @Test
+    void publish_shouldEvictTheEntryOnAnotherNode() throws InterruptedException {
+        otherNodeCatalog.getProduct(42L, () -> product("cached"));
+        assertThat(otherNodeCatalog.getProduct(42L, () -> product("reloaded")).getName()).isEqualTo("cached");
+
+        cacheInvalidationBus.publish(CacheInvalidation.of(CacheConfig.PRODUCTS, 42L));
+
+        assertThat(otherNodeReceived.poll(5, TimeUnit.SECONDS))
+                .isEqualTo(CacheInvalidation.of(CacheConfig.PRODUCTS, 42L));
+        assertThat(otherNodeCatalog.getProduct(42L, () -> product("reloaded")).getName()).isEqualTo("reloaded");
+    }
+
+    @Test
+    void listener_shouldDropSharedCachesAfterItsConnectionIsKilled() throws InterruptedException {
+        otherNodeCatalog.getProduct(42L, () -> product("cached"));
+
+        // Both nodes' listening connections go; anything published meanwhile would be lost
+        jdbcTemplate.queryForList("""
+                SELECT pg_terminate_backend(pid) FROM pg_stat_activity
+                WHERE query = 'LISTEN cache_invalidation' AND pid <> pg_backend_pid()
+                """);
+
+        CacheInvalidation resync;
+        do {
+            resync = otherNodeReceived.poll(5, TimeUnit.SECONDS);
+        } while (resync != null && !resync.equals(CacheInvalidation.all(CacheConfig.PRODUCTS)));
+
+        assertThat(resync).isEqualTo(CacheInvalidation.all(CacheConfig.PRODUCTS));
+        assertThat(otherNodeMeters.counter("cache.invalidation.resyncs").count()).isEqualTo(1);
+        assertThat(otherNodeCatalog.getProduct(42L, () -> product("reloaded")).getName()).isEqualTo("reloaded");
+        awaitOtherNodeConnected();
+    }
+
+
+    private void awaitOtherNodeConnected() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (otherNodeMeters.get("cache.invalidation.connected").gauge().value() != 1) {
+            assertThat(System.nanoTime()).as("other node connected").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static ProductResponse product(String name) {
+        return ProductResponse.builder().id(42L).name(name).build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.marouane.ecom.common;
+
+import com.marouane.ecom.profiling.QueryProfile;
+import com.marouane.ecom.profiling.QueryProfiler;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fails when the action runs more SQL statements on the calling thread than allowed; an N+1 shows up
+// as one statement repeated once per row in the failure message.
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertMaxStatements(int maxStatements, Supplier<T> action) {
+        QueryProfile profile = QueryProfiler.start();
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            QueryProfiler.stop(profile);
+        }
+        assertThat(profile.statements())
+                .as("SQL statements, most repeated: %s", profile.mostRepeated(5))
+                .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+}
@@ -4,6 +4,8 @@ import com.marouane.ecom.auth.AuthenticationRequest;
 import com.marouane.ecom.auth.AuthenticationResponse;
 import com.marouane.ecom.auth.RegistrationRequest;
 import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.exception.InsufficientStockException;
+import com.marouane.ecom.exception.InventoryNotFoundException;
 import com.marouane.ecom.product.Product;
 import com.marouane.ecom.product.ProductRepository;
 import com.marouane.ecom.product.ProductRequest;
@@ -15,15 +17,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.*;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -34,6 +45,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InventoryIntegrationTest extends BaseIntegrationTest {
@@ -59,6 +71,15 @@ class InventoryIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private InventoryReservationRepository reservationRepository;
 
+    @Autowired
+    private ReservationExpiryWheel expiryWheel;
+
+    @Autowired
+    private StockImportService stockImportService;
+
+    @Autowired
+    private DataSource dataSource;
+
 
 
     String jwtToken;
@@ -260,6 +281,79 @@ class InventoryIntegrationTest extends BaseIntegrationTest {
 
     }
 
+    @Test
+    void reserveForOrder_whenOneProductIsShort_shouldReserveNothing() {
+        performAuthenticatedRequest(
+                HttpMethod.POST,
+                "/api/inventory/create/" + testProductId + "/100",
+                null,
+                Inventory.class
+        );
+
+        Product otherProduct = productRepository.save(Product.builder()
+                .name("Other Product")
+                .status(ProductStatus.ACTIVE)
+                .price(BigDecimal.TEN)
+                .build());
+        inventoryService.createInventory(otherProduct.getId(), 5);
+
+        UUID orderId = UUID.randomUUID();
+        assertThatThrownBy(() -> inventoryService.reserveForOrder(
+                Map.of(testProductId, 20, otherProduct.getId(), 6), orderId))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(inventoryRepository.findByProductId(testProductId).orElseThrow().getTotalReserved()).isZero();
+        assertThat(inventoryRepository.findByProductId(otherProduct.getId()).orElseThrow().getTotalReserved()).isZero();
+        assertThat(reservationRepository.findByOrderId(orderId)).isEmpty();
+
+        inventoryService.reserveForOrder(Map.of(testProductId, 20, otherProduct.getId(), 5), orderId);
+
+        assertThat(inventoryRepository.findByProductId(testProductId).orElseThrow().getTotalReserved()).isEqualTo(20);
+        assertThat(inventoryRepository.findByProductId(otherProduct.getId()).orElseThrow().getAvailableQuantity()).isZero();
+        assertThat(reservationRepository.findByOrderId(orderId)).hasSize(2);
+    }
+
+    @Test
+    void concurrentReserveStock_inConditionalMode_shouldPreventOverselling() throws InterruptedException {
+        inventoryService.createInventory(testProductId, 100);
+        InventoryService target = AopTestUtils.getTargetObject(inventoryService);
+        ReflectionTestUtils.setField(target, "reservationMode", ReservationMode.CONDITIONAL);
+
+        int threadCount = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger successCount = new AtomicInteger(0);
+        AtomicInteger insufficientCount = new AtomicInteger(0);
+
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                executor.execute(() -> {
+                    try {
+                        latch.await();
+                        inventoryService.reserveStock(testProductId, 15);
+                        successCount.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        insufficientCount.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            latch.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            ReflectionTestUtils.setField(target, "reservationMode", ReservationMode.LOCKING);
+        }
+
+        Inventory inventory = inventoryRepository.findByProductId(testProductId).orElseThrow();
+        assertThat(inventory.getTotalReserved()).isEqualTo(90);
+        assertThat(inventory.getVersion()).isZero();
+        assertThat(successCount.get()).isEqualTo(6);
+        assertThat(insufficientCount.get()).isEqualTo(4);
+    }
+
     @Test
     void concurrentReserveStock_shouldPreventOverselling() throws InterruptedException {
         // Setup initial inventory
@@ -359,7 +453,173 @@ class InventoryIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
-    void whenMultipleInstancesRunCleanup_shouldProcessOnce() throws Exception {
+    void reserveForOrder_shouldScheduleExpiryAndConfirmShouldCancelIt() {
+        inventoryService.createInventory(testProductId, 100);
+
+        UUID orderId = UUID.randomUUID();
+        inventoryService.reserveForOrder(Map.of(testProductId, 20), orderId);
+        UUID reservationId = reservationRepository.findByOrderId(orderId).get(0).getId();
+
+        assertThat(expiryWheel.drainDue(LocalDateTime.now())).doesNotContain(reservationId);
+        assertThat(expiryWheel.size()).isPositive();
+
+        inventoryService.confirmReservation(orderId);
+
+        assertThat(expiryWheel.drainDue(LocalDateTime.now().plusMinutes(31))).doesNotContain(reservationId);
+    }
+
+    @Test
+    void releaseExpiredReservations_inConditionalMode_shouldFailWhenInventoryRowIsMissing() {
+        UUID reservationId = reservationRepository.save(InventoryReservation.builder()
+                .productId(testProductId)
+                .quantity(5)
+                .orderId(UUID.randomUUID())
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build()).getId();
+        InventoryService target = AopTestUtils.getTargetObject(inventoryService);
+        ReflectionTestUtils.setField(target, "reservationMode", ReservationMode.CONDITIONAL);
+
+        try {
+            assertThatThrownBy(() -> inventoryService.releaseExpiredReservations())
+                    .isInstanceOf(InventoryNotFoundException.class);
+        } finally {
+            ReflectionTestUtils.setField(target, "reservationMode", ReservationMode.LOCKING);
+        }
+
+        assertThat(reservationRepository.existsById(reservationId)).isTrue();
+    }
+
+    @Test
+    void releaseDueReservations_shouldRetryReservationsLockedByAnotherTransaction() throws SQLException {
+        inventoryService.createInventory(testProductId, 100);
+
+        UUID orderId = UUID.randomUUID();
+        inventoryService.reserveForOrder(Map.of(testProductId, 20), orderId);
+        UUID reservationId = reservationRepository.findByOrderId(orderId).get(0).getId();
+        expiryWheel.retry(List.of(reservationId), LocalDateTime.now().minusMinutes(1));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lockRow = connection.prepareStatement(
+                    "SELECT id FROM inventory_reservations WHERE id = ? FOR UPDATE")) {
+                lockRow.setObject(1, reservationId);
+                lockRow.executeQuery().close();
+            }
+
+            inventoryService.releaseDueReservations();
+            connection.rollback();
+        }
+
+        assertThat(reservationRepository.existsById(reservationId)).isTrue();
+        assertThat(expiryWheel.drainDue(LocalDateTime.now().plusMinutes(1))).contains(reservationId);
+    }
+
+    @Test
+    void expiryWheel_shouldNotDueAReservationBeforeItsFractionalExpiry() {
+        // An hour out, on a bucket boundary, so the scheduled tick leaves both buckets alone
+        long bucketStart = Math.floorDiv(LocalDateTime.now().plusHours(1).toEpochSecond(ZoneOffset.UTC), 5) * 5;
+        LocalDateTime boundary = LocalDateTime.ofEpochSecond(bucketStart, 0, ZoneOffset.UTC);
+        InventoryReservation reservation = reservationRepository.save(InventoryReservation.builder()
+                .productId(testProductId)
+                .quantity(1)
+                .orderId(UUID.randomUUID())
+                .expiresAt(boundary.plusNanos(700_000_000))
+                .build());
+
+        expiryWheel.schedule(List.of(reservation));
+
+        assertThat(expiryWheel.drainDue(boundary)).doesNotContain(reservation.getId());
+        assertThat(expiryWheel.drainDue(boundary.plusSeconds(5))).contains(reservation.getId());
+    }
+
+    @Test
+    void releaseDueReservations_shouldKeepClaimedReservationsThatAreNotDueOnTheWheel() {
+        inventoryService.createInventory(testProductId, 100);
+
+        UUID orderId = UUID.randomUUID();
+        inventoryService.reserveForOrder(Map.of(testProductId, 20), orderId);
+        UUID reservationId = reservationRepository.findByOrderId(orderId).get(0).getId();
+        // Due on the wheel while the row still expires in 30 minutes
+        expiryWheel.retry(List.of(reservationId), LocalDateTime.now().minusMinutes(1));
+
+        inventoryService.releaseDueReservations();
+
+        assertThat(reservationRepository.existsById(reservationId)).isTrue();
+        assertThat(inventoryRepository.findByProductId(testProductId).orElseThrow().getTotalReserved()).isEqualTo(20);
+        assertThat(expiryWheel.drainDue(LocalDateTime.now().plusMinutes(1))).contains(reservationId);
+    }
+
+    @Test
+    void importStock_shouldApplyChunksInParallelAndReportRejectedRows() throws IOException {
+        ReflectionTestUtils.setField(stockImportService, "chunkSize", 2);
+        MockMultipartFile file = createMockCsvFile("""
+                product_name,quantity,category
+                New Widget,3,Tools
+                New Widget,4,Tools
+                Test Product,5,TEST_CATEGORY
+                New Widget,2,Tools
+                ,7,Tools
+                """);
+
+        BulkImportResult result;
+        try {
+            result = stockImportService.importStock(file.getInputStream());
+        } finally {
+            ReflectionTestUtils.setField(stockImportService, "chunkSize", 1000);
+        }
+
+        assertThat(result.getProcessedCount()).isEqualTo(4);
+        assertThat(result.getFailedCount()).isEqualTo(1);
+        assertThat(result.getCoalescedRows()).isEqualTo(1);
+        assertThat(result.getChunkCount()).isEqualTo(3);
+        assertThat(result.getChunks()).allMatch(chunk -> chunk.getError() == null);
+
+        assertThat(inventoryRepository.findByProductId(testProductId).orElseThrow().getTotalQuantity()).isEqualTo(5);
+        Product widget = productRepository.findByName("New Widget").orElseThrow();
+        assertThat(inventoryRepository.findByProductId(widget.getId()).orElseThrow().getTotalQuantity()).isEqualTo(9);
+    }
+
+    @Test
+    void bulkUpdateUpload_shouldRunAsJobAndReportProgress() throws Exception {
+        MockMultipartFile file = createMockCsvFile("""
+                product_name,quantity
+                Test Product,12
+                """);
+        LinkedMultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(file.getBytes()) {
+            @Override
+            public String getFilename() {
+                return file.getOriginalFilename();
+            }
+        });
+        HttpHeaders headers = getAuthHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<ImportJobResponse> submitted = restTemplate.exchange(
+                "/api/inventory/bulk-update",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                ImportJobResponse.class
+        );
+        assertThat(submitted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        UUID jobId = submitted.getBody().getJobId();
+
+        ImportJobResponse job = submitted.getBody();
+        for (int i = 0; i < 50 && job.getStatus() != ImportJobStatus.COMPLETED; i++) {
+            Thread.sleep(100);
+            job = performAuthenticatedRequest(
+                    HttpMethod.GET, "/api/inventory/bulk-update/" + jobId, null, ImportJobResponse.class
+            ).getBody();
+        }
+
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getProcessedRows()).isEqualTo(1);
+        assertThat(job.getPercentComplete()).isEqualTo(100.0);
+        assertThat(inventoryRepository.findByProductId(testProductId).orElseThrow().getTotalQuantity()).isEqualTo(12);
+    }
+
+    @Test
+    void whenMultipleInstancesRunCleanup_shouldReleaseEachReservationOnce() throws Exception {
         performAuthenticatedRequest(
                 HttpMethod.POST,
                 "/api/inventory/create/" + testProductId + "/100",
@@ -367,35 +627,44 @@ class InventoryIntegrationTest extends BaseIntegrationTest {
                 Inventory.class
         );
 
-        UUID orderId = UUID.randomUUID();
-        inventoryService.reserveForOrder(Map.of(testProductId, 20), orderId);
+        for (int i = 0; i < 5; i++) {
+            inventoryService.reserveForOrder(Map.of(testProductId, 10), UUID.randomUUID());
+        }
 
         // Force expiration
-        reservationRepository.findAll().forEach(r ->
-                r.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
-        reservationRepository.flush();
+        jdbcTemplate.update("UPDATE inventory_reservations SET expires_at = ?",
+                LocalDateTime.now().minusMinutes(1));
+
+        UUID liveOrderId = UUID.randomUUID();
+        inventoryService.reserveForOrder(Map.of(testProductId, 15), liveOrderId);
 
-        // Simulate multiple instances trying to clean up
+        // Simulate multiple instances sweeping at the same time
         int instanceCount = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(instanceCount);
+        CountDownLatch latch = new CountDownLatch(1);
         AtomicInteger cleanupCount = new AtomicInteger(0);
 
         for (int i = 0; i < instanceCount; i++) {
-            new Thread(() -> {
+            executor.execute(() -> {
                 try {
+                    latch.await();
                     inventoryService.releaseExpiredReservations();
                     cleanupCount.incrementAndGet();
                 } catch (Exception ignored) {}
-            }).start();
+            });
         }
 
-        // Wait for completion
-        Thread.sleep(2000);
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
 
-        // Verify cleanup happened only once
-        assertThat(cleanupCount.get()).isEqualTo(1);
-        assertThat(reservationRepository.count()).isZero();
+        // Every instance finishes without conflicts, and only the live reservation is left
+        assertThat(cleanupCount.get()).isEqualTo(instanceCount);
+        assertThat(reservationRepository.findAll())
+                .extracting(InventoryReservation::getOrderId)
+                .containsExactly(liveOrderId);
         assertThat(inventoryRepository.findByProductId(testProductId)
-                .orElseThrow().getTotalReserved()).isZero();
+                .orElseThrow().getTotalReserved()).isEqualTo(15);
     }
 
 }
\ No newline at end of file
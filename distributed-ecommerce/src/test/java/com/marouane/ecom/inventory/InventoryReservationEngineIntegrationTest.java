@@ -0,0 +1,206 @@
+package com.marouane.ecom.inventory;
+
+import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.config.CacheConfig;
+import com.marouane.ecom.exception.InsufficientStockException;
+import com.marouane.ecom.product.Product;
+import com.marouane.ecom.product.ProductRepository;
+import com.marouane.ecom.product.ProductStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The scheduled flush is pushed out of the way so each test decides when deltas reach the row.
+@TestPropertySource(properties = {
+        "application.inventory.reservation.mode=IN_MEMORY",
+        "application.inventory.reservation.engine.flush-interval-ms=3600000"
+})
+class InventoryReservationEngineIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InventoryReservationEngine reservationEngine;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long productId;
+
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM inventory_reservations");
+        jdbcTemplate.execute("DELETE FROM inventory");
+        productRepository.deleteAll();
+        // Counters of products deleted above must not leak into this test
+        reservationEngine.rebuildFromReservations();
+
+        Product product = productRepository.save(Product.builder()
+                .name("Engine Product").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        productId = product.getId();
+        inventoryService.createInventory(productId, 5);
+    }
+
+    @Test
+    void reserve_shouldAdmitUpToAvailableAndRejectBeyond() {
+        reservationEngine.reserve(productId, 3);
+        reservationEngine.reserve(productId, 2);
+
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void reserve_shouldBeReleasedWhenTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reservationEngine.reserve(productId, 5);
+            status.setRollbackOnly();
+        });
+
+        reservationEngine.reserve(productId, 5);
+        reservationEngine.flush(List.of(productId));
+        assertThat(totalReserved()).isEqualTo(5);
+    }
+
+    @Test
+    void flush_shouldWriteDeltaOnceAndStayConsistentAfterResync() {
+        reservationEngine.reserve(productId, 3);
+        reservationEngine.flush(List.of(productId));
+        assertThat(totalReserved()).isEqualTo(3);
+
+        reservationEngine.onInvalidation(CacheInvalidation.of(CacheConfig.INVENTORY, productId));
+
+        reservationEngine.reserve(productId, 2);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void resync_betweenFlushCommitAndSettle_shouldNotCountDeltaTwice() {
+        reservationEngine.reserve(productId, 3);
+
+        // The flush joins this transaction; afterCommit callbacks run before its afterCompletion settle,
+        // so the invalidation sees a committed row while the delta is still marked in flight.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reservationEngine.flush(List.of(productId));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reservationEngine.onInvalidation(CacheInvalidation.of(CacheConfig.INVENTORY, productId));
+                }
+            });
+        });
+        assertThat(totalReserved()).isEqualTo(3);
+
+        reservationEngine.reserve(productId, 2);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+
+        // The deferred resync lands on the same numbers
+        reservationEngine.flushPending();
+        assertThat(totalReserved()).isEqualTo(5);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void rebuild_shouldRecomputeReservedFromReservationsAfterLostDeltas() {
+        reservationRepository.save(InventoryReservation.builder()
+                .productId(productId)
+                .quantity(2)
+                .orderId(UUID.randomUUID())
+                .expiresAt(LocalDateTime.now().plusMinutes(30))
+                .build());
+        // As if the node died with unflushed deltas and the row drifted from the reservations
+        jdbcTemplate.update("UPDATE inventory SET total_reserved = 4 WHERE product_id = ?", productId);
+        reservationEngine.reserve(productId, 1);
+
+        reservationEngine.rebuildFromReservations();
+
+        assertThat(totalReserved()).isEqualTo(2);
+        reservationEngine.reserve(productId, 3);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void rebuild_shouldKeepManualHolds() {
+        inventoryService.reserveStock(productId, 2);
+
+        reservationEngine.rebuildFromReservations();
+
+        assertThat(totalReserved()).isEqualTo(2);
+        reservationEngine.reserve(productId, 3);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+
+        inventoryService.releaseReservation(productId, 2);
+        reservationEngine.flushPending();
+        reservationEngine.rebuildFromReservations();
+        assertThat(totalReserved()).isZero();
+    }
+
+    @Test
+    void rebuild_shouldWaitForFlushInFlight() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        inventoryService.reserveForOrder(Map.of(productId, 3), orderId);
+
+        ExecutorService rebuilder = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> rebuild = new TransactionTemplate(transactionManager).execute(status -> {
+                reservationEngine.flush(List.of(productId));
+                Future<?> started = rebuilder.submit(reservationEngine::rebuildFromReservations);
+                assertThatThrownBy(() -> started.get(300, TimeUnit.MILLISECONDS))
+                        .isInstanceOf(TimeoutException.class);
+                return started;
+            });
+            rebuild.get(5, TimeUnit.SECONDS);
+        } finally {
+            rebuilder.shutdownNow();
+        }
+
+        // The committed delta and the rebuild describe the same reservation, so it is counted once
+        assertThat(totalReserved()).isEqualTo(3);
+        reservationEngine.reserve(productId, 2);
+        assertThatThrownBy(() -> reservationEngine.reserve(productId, 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+
+    private int totalReserved() {
+        return jdbcTemplate.queryForObject(
+                "SELECT total_reserved FROM inventory WHERE product_id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,105 @@
+package com.marouane.ecom.load;
+
+import com.marouane.ecom.auth.AuthenticationRequest;
+import com.marouane.ecom.auth.AuthenticationResponse;
+import com.marouane.ecom.auth.RegistrationRequest;
+import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.inventory.InventoryService;
+import com.marouane.ecom.order.CheckoutRequest;
+import com.marouane.ecom.product.Product;
+import com.marouane.ecom.product.ProductRepository;
+import com.marouane.ecom.product.ProductStatus;
+import com.marouane.ecom.user.Role;
+import com.marouane.ecom.user.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+// Shared fixture of the load tests: an empty shop with the USER role before every run, and the
+// requests a buyer makes.
+@Tag("load")
+abstract class BaseLoadTest extends BaseIntegrationTest {
+
+    static final String PASSWORD = "password5555";
+
+    @Autowired
+    protected TestRestTemplate restTemplate;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+
+    @BeforeEach
+    void resetShop() {
+        jdbcTemplate.execute("DELETE FROM inventory_reservations");
+        jdbcTemplate.execute("DELETE FROM order_items");
+        jdbcTemplate.execute("DELETE FROM orders");
+        jdbcTemplate.execute("DELETE FROM cart_items");
+        jdbcTemplate.execute("DELETE FROM carts");
+        jdbcTemplate.execute("DELETE FROM customer_revenue");
+        jdbcTemplate.execute("DELETE FROM daily_revenue");
+        jdbcTemplate.execute("DELETE FROM inventory");
+        jdbcTemplate.execute("DELETE FROM product");
+        jdbcTemplate.execute("DELETE FROM _user_roles");
+        jdbcTemplate.execute("DELETE FROM _user");
+        jdbcTemplate.execute("DELETE FROM role");
+        roleRepository.save(Role.builder().name("USER").build());
+    }
+
+
+    Long createProduct(String name, BigDecimal price, int quantity) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .category("LOAD")
+                .status(ProductStatus.ACTIVE)
+                .price(price)
+                .build());
+        inventoryService.createInventory(product.getId(), quantity);
+        return product.getId();
+    }
+
+    ResponseEntity<Void> register(String email) {
+        return restTemplate.postForEntity("/api/auth/register",
+                new RegistrationRequest("Load", "Buyer", email, PASSWORD), Void.class);
+    }
+
+    ResponseEntity<AuthenticationResponse> login(String email) {
+        return restTemplate.postForEntity("/api/auth/authenticate",
+                new AuthenticationRequest(email, PASSWORD), AuthenticationResponse.class);
+    }
+
+    ResponseEntity<String> addToCart(String token, Long productId) {
+        return restTemplate.exchange("/api/cart/add/" + productId + "/1",
+                HttpMethod.POST, withToken(token, null), String.class);
+    }
+
+    ResponseEntity<String> checkout(String token) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setCardNumber("4242424242424242");
+        return restTemplate.exchange("/api/orders/checkout",
+                HttpMethod.POST, withToken(token, request), String.class);
+    }
+
+    static HttpEntity<Object> withToken(String token, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
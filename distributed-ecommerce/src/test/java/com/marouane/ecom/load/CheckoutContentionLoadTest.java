@@ -0,0 +1,250 @@
+package com.marouane.ecom.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marouane.ecom.auth.AuthenticationResponse;
+import com.marouane.ecom.inventory.InventoryReservationEngine;
+import com.marouane.ecom.inventory.ReservationMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Buyers each run register, login, add-to-cart and checkout against one node, with a configurable
+ * share of them going for a single hot SKU whose stock runs out mid-run. Every step is timed
+ * separately, Postgres lock waits are sampled throughout, and the run ends with an oversell check.
+ * <p>
+ * One subclass per {@link ReservationMode}; each writes {@code checkout-<mode>.json} to
+ * {@code load.results-dir} (default {@code target/load-results}) for side-by-side comparison.
+ * Run with {@code mvn test -Pload-tests}; sizes can be overridden with -Dload.buyers,
+ * -Dload.concurrency, -Dload.hot-sku-ratio, -Dload.hot-sku-stock and -Dload.seed.
+ */
+abstract class CheckoutContentionLoadTest extends BaseLoadTest {
+
+    private static final int BUYERS = Integer.getInteger("load.buyers", 500);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final double HOT_SKU_RATIO = Double.parseDouble(System.getProperty("load.hot-sku-ratio", "0.8"));
+    // Defaults to half the expected hot buyers, so the hot SKU sells out halfway through
+    private static final int HOT_SKU_STOCK = Integer.getInteger("load.hot-sku-stock", (int) (BUYERS * HOT_SKU_RATIO / 2));
+    private static final long SEED = Long.getLong("load.seed", 42);
+    private static final String RESULTS_DIR = System.getProperty("load.results-dir", "target/load-results");
+    private static final int COLD_PRODUCTS = 20;
+    private static final int MAX_THROTTLED_RETRIES = 30;
+    private static final BigDecimal PRICE = BigDecimal.valueOf(25);
+
+    @Autowired
+    private InventoryReservationEngine reservationEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${application.inventory.reservation.mode}")
+    private ReservationMode reservationMode;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private final AtomicInteger throttledRetries = new AtomicInteger();
+    private final AtomicInteger hotAttempts = new AtomicInteger();
+    private final AtomicInteger hotRejected = new AtomicInteger();
+    private final AtomicInteger coldRejected = new AtomicInteger();
+    private final List<Long> coldProductIds = new ArrayList<>();
+    private Long hotProductId;
+
+
+    @BeforeEach
+    void setUp() {
+        hotProductId = createProduct("Hot Product", PRICE, HOT_SKU_STOCK);
+        for (int i = 0; i < COLD_PRODUCTS; i++) {
+            // Enough that cold buyers never run out, whatever the skew
+            coldProductIds.add(createProduct("Cold Product " + i, PRICE, BUYERS));
+        }
+    }
+
+    @Test
+    void checkoutUnderHotSkuContention() throws InterruptedException, IOException {
+        LoadStats register = new LoadStats("register");
+        LoadStats login = new LoadStats("login");
+        LoadStats addToCart = new LoadStats("add-to-cart");
+        LoadStats checkout = new LoadStats("checkout");
+        LoadStats journey = new LoadStats("journey");
+        List<LoadStats> phases = List.of(register, login, addToCart, checkout, journey);
+
+        SingleConnectionDataSource samplerDataSource =
+                new SingleConnectionDataSource(datasourceUrl, datasourceUsername, datasourcePassword, true);
+        LockWaitSampler lockWaits = new LockWaitSampler(new JdbcTemplate(samplerDataSource), 50);
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        try (lockWaits; ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            phases.forEach(LoadStats::start);
+            for (int i = 0; i < BUYERS; i++) {
+                int buyer = i;
+                inFlight.acquire();
+                clients.submit(() -> {
+                    try {
+                        buy(buyer, register, login, addToCart, checkout, journey);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            samplerDataSource.destroy();
+        }
+        phases.forEach(LoadStats::finish);
+
+        // IN_MEMORY keeps reserved deltas on the node until the next flush
+        reservationEngine.flushPending();
+        Map<String, Object> stock = hotSkuStock();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reservationMode", reservationMode.name());
+        result.put("config", config());
+        result.put("phases", phases.stream().map(LoadStats::toResult).toList());
+        result.put("lockWaits", lockWaits.toResult());
+        result.put("throttledRetries", throttledRetries.get());
+        result.put("hotSku", stock);
+        result.put("coldRejected", coldRejected.get());
+
+        Path output = Path.of(RESULTS_DIR, "checkout-" + reservationMode.name().toLowerCase() + ".json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), result);
+        phases.forEach(phase -> System.out.println(phase.summary("reservation=" + reservationMode)));
+        System.out.println("results written to " + output.toAbsolutePath());
+
+        assertThat(register.errors()).isZero();
+        assertThat(login.errors()).isZero();
+        assertThat(coldRejected.get()).isZero();
+        assertThat(stock.get("oversold")).isEqualTo(false);
+        // Rejections are only acceptable once the hot SKU has actually sold out
+        if (hotRejected.get() > 0) {
+            assertThat(stock.get("sold")).isEqualTo(HOT_SKU_STOCK);
+        }
+        assertThat((int) stock.get("sold") + hotRejected.get()).isEqualTo(hotAttempts.get());
+    }
+
+
+    private void buy(int buyer, LoadStats register, LoadStats login, LoadStats addToCart,
+                     LoadStats checkout, LoadStats journey) {
+        long startedAt = System.nanoTime();
+        Random random = new Random(SEED + buyer);
+        boolean hot = random.nextDouble() < HOT_SKU_RATIO;
+        Long productId = hot ? hotProductId : coldProductIds.get(random.nextInt(coldProductIds.size()));
+        String email = "buyer" + buyer + "@contention.test";
+
+        boolean bought = false;
+        try {
+            ResponseEntity<Void> registered = timed(register, () -> withRetry(() -> register(email)));
+            if (!registered.getStatusCode().is2xxSuccessful()) {
+                return;
+            }
+            ResponseEntity<AuthenticationResponse> authenticated = timed(login, () -> withRetry(() -> login(email)));
+            if (!authenticated.getStatusCode().is2xxSuccessful() || authenticated.getBody() == null) {
+                return;
+            }
+            String token = authenticated.getBody().getToken();
+
+            if (hot) {
+                hotAttempts.incrementAndGet();
+            }
+            ResponseEntity<String> added = timed(addToCart, () -> addToCart(token, productId));
+            if (added.getStatusCode().is2xxSuccessful()) {
+                bought = timed(checkout, () -> checkout(token)).getStatusCode().is2xxSuccessful();
+            }
+            (hot ? hotRejected : coldRejected).addAndGet(bought ? 0 : 1);
+        } finally {
+            journey.record(System.nanoTime() - startedAt, bought);
+        }
+    }
+
+    private static <T> ResponseEntity<T> timed(LoadStats stats, Supplier<ResponseEntity<T>> request) {
+        long startedAt = System.nanoTime();
+        ResponseEntity<T> response = null;
+        try {
+            response = request.get();
+            return response;
+        } finally {
+            stats.record(System.nanoTime() - startedAt,
+                    response != null && response.getStatusCode().is2xxSuccessful());
+        }
+    }
+
+    // Password hashing sheds load with 429 + Retry-After; a well-behaved client waits and retries
+    private <T> ResponseEntity<T> withRetry(Supplier<ResponseEntity<T>> request) {
+        ResponseEntity<T> response = request.get();
+        for (int attempt = 0; attempt < MAX_THROTTLED_RETRIES
+                && response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS; attempt++) {
+            throttledRetries.incrementAndGet();
+            String retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            try {
+                TimeUnit.SECONDS.sleep(retryAfter == null ? 1 : Long.parseLong(retryAfter));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return response;
+            }
+            response = request.get();
+        }
+        return response;
+    }
+
+    private Map<String, Object> hotSkuStock() {
+        Map<String, Object> inventory = jdbcTemplate.queryForMap(
+                "SELECT total_quantity, total_reserved FROM inventory WHERE product_id = ?", hotProductId);
+        Integer sold = jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(oi.quantity), 0)
+                FROM order_items oi JOIN orders o ON o.id = oi.order_id
+                WHERE oi.product_id = ? AND o.status = 'PAID'
+                """, Integer.class, hotProductId);
+        int totalQuantity = (int) inventory.get("total_quantity");
+        int totalReserved = (int) inventory.get("total_reserved");
+
+        Map<String, Object> stock = new LinkedHashMap<>();
+        stock.put("stock", HOT_SKU_STOCK);
+        stock.put("attempts", hotAttempts.get());
+        stock.put("sold", sold);
+        stock.put("rejected", hotRejected.get());
+        stock.put("totalQuantity", totalQuantity);
+        stock.put("totalReserved", totalReserved);
+        stock.put("oversold", sold > HOT_SKU_STOCK || totalReserved > totalQuantity);
+        return stock;
+    }
+
+    private Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("buyers", BUYERS);
+        config.put("concurrency", CONCURRENCY);
+        config.put("hotSkuRatio", HOT_SKU_RATIO);
+        config.put("hotSkuStock", HOT_SKU_STOCK);
+        config.put("coldProducts", COLD_PRODUCTS);
+        config.put("seed", SEED);
+        return config;
+    }
+}
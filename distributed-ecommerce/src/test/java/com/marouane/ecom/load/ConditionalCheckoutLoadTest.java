@@ -0,0 +1,7 @@
+package com.marouane.ecom.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "application.inventory.reservation.mode=CONDITIONAL")
+class ConditionalCheckoutLoadTest extends CheckoutContentionLoadTest {
+}
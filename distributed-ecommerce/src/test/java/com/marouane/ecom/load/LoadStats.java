@@ -0,0 +1,78 @@
+package com.marouane.ecom.load;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Latencies of one load phase; each recorded request is either a success or an error.
+class LoadStats {
+
+    private final String name;
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger errors = new AtomicInteger();
+    private long startedAt;
+    private long finishedAt;
+
+    LoadStats(String name) {
+        this.name = name;
+    }
+
+    void start() {
+        startedAt = System.nanoTime();
+    }
+
+    void finish() {
+        finishedAt = System.nanoTime();
+    }
+
+    void record(long latencyNanos, boolean success) {
+        latencies.add(latencyNanos);
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    int requests() {
+        return latencies.size();
+    }
+
+    int errors() {
+        return errors.get();
+    }
+
+    double throughput() {
+        return requests() / ((finishedAt - startedAt) / 1e9);
+    }
+
+    double percentileMillis(double percentile) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    String summary(String run) {
+        return String.format(Locale.ROOT,
+                "%s phase=%s requests=%d errors=%d throughput=%.1f/s p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms",
+                run, name, requests(), errors(), throughput(),
+                percentileMillis(50), percentileMillis(99), percentileMillis(99.9), percentileMillis(100));
+    }
+
+    Map<String, Object> toResult() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", name);
+        result.put("requests", requests());
+        result.put("errors", errors());
+        result.put("throughputPerSecond", throughput());
+        result.put("p50Millis", percentileMillis(50));
+        result.put("p99Millis", percentileMillis(99));
+        result.put("p999Millis", percentileMillis(99.9));
+        result.put("maxMillis", percentileMillis(100));
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package com.marouane.ecom.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Samples backends blocked on a heavyweight lock (row locks included) while a phase runs.
+// Give it its own connection so sampling never queues behind the load on the application pool.
+class LockWaitSampler implements AutoCloseable {
+
+    private static final String WAITING_SQL = """
+            SELECT count(*) FROM pg_stat_activity
+            WHERE datname = current_database() AND wait_event_type = 'Lock'
+            """;
+
+    private static final String DEADLOCKS_SQL =
+            "SELECT deadlocks FROM pg_stat_database WHERE datname = current_database()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicInteger samplesWithWaiters = new AtomicInteger();
+    private final AtomicLong waiterTotal = new AtomicLong();
+    private final AtomicInteger maxWaiters = new AtomicInteger();
+    private final long deadlocksBefore;
+    private long deadlocks;
+
+    LockWaitSampler(JdbcTemplate jdbcTemplate, long intervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deadlocksBefore = deadlocks();
+        sampler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sampler.shutdown();
+        sampler.awaitTermination(5, TimeUnit.SECONDS);
+        deadlocks = deadlocks() - deadlocksBefore;
+    }
+
+    Map<String, Object> toResult() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", samples.get());
+        result.put("samplesWithWaiters", samplesWithWaiters.get());
+        result.put("meanWaiters", samples.get() == 0 ? 0.0 : waiterTotal.get() / (double) samples.get());
+        result.put("maxWaiters", maxWaiters.get());
+        result.put("deadlocks", deadlocks);
+        return result;
+    }
+
+
+    private void sample() {
+        try {
+            Integer waiting = jdbcTemplate.queryForObject(WAITING_SQL, Integer.class);
+            int waiters = waiting == null ? 0 : waiting;
+            samples.incrementAndGet();
+            waiterTotal.addAndGet(waiters);
+            maxWaiters.accumulateAndGet(waiters, Math::max);
+            if (waiters > 0) {
+                samplesWithWaiters.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            // a missed sample only thins the series
+        }
+    }
+
+    private long deadlocks() {
+        Long count = jdbcTemplate.queryForObject(DEADLOCKS_SQL, Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,9 @@
+package com.marouane.ecom.load;
+
+class PlatformThreadsLoadTest extends ThreadModeLoadTest {
+
+    @Override
+    String threadMode() {
+        return "platform";
+    }
+}
@@ -0,0 +1,102 @@
+package com.marouane.ecom.load;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives catalog reads and checkouts with more concurrent clients than Tomcat has platform threads,
+ * once per thread mode (see the subclasses), and prints one summary line per phase for comparison.
+ * Run with {@code mvn test -Pload-tests}; sizes can be overridden with -Dload.concurrency,
+ * -Dload.catalog-requests and -Dload.buyers.
+ */
+abstract class ThreadModeLoadTest extends BaseLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 400);
+    private static final int CATALOG_REQUESTS = Integer.getInteger("load.catalog-requests", 20000);
+    private static final int BUYERS = Integer.getInteger("load.buyers", 200);
+    private static final int PRODUCTS = 50;
+
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    abstract String threadMode();
+
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct("Load Product " + i, BigDecimal.valueOf(10 + i), 1_000_000));
+        }
+
+        for (int i = 0; i < BUYERS; i++) {
+            String email = "buyer" + i + "@load.test";
+            register(email);
+            tokens.add(Objects.requireNonNull(login(email).getBody()).getToken());
+        }
+    }
+
+    @Test
+    void catalogAndCheckoutUnderLoad() throws InterruptedException {
+        LoadStats catalog = run("catalog", CATALOG_REQUESTS, i -> {
+            int page = ThreadLocalRandom.current().nextInt(3);
+            return restTemplate.exchange("/api/products/available?page=" + page + "&size=20",
+                    HttpMethod.GET, withToken(tokens.get(i % tokens.size()), null), String.class);
+        });
+
+        LoadStats checkout = run("checkout", BUYERS, i -> {
+            String token = tokens.get(i);
+            Long productId = productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+            ResponseEntity<String> added = addToCart(token, productId);
+            return added.getStatusCode().is2xxSuccessful() ? checkout(token) : added;
+        });
+
+        System.out.println(catalog.summary("threads=" + threadMode()));
+        System.out.println(checkout.summary("threads=" + threadMode()));
+
+        assertThat(catalog.errors()).isZero();
+        assertThat(checkout.errors()).isZero();
+    }
+
+
+    private LoadStats run(String phase, int requests, IntFunction<ResponseEntity<?>> request)
+            throws InterruptedException {
+        LoadStats stats = new LoadStats(phase);
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        // Client side uses virtual threads in both modes, so only the server's threading differs
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            stats.start();
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                inFlight.acquire();
+                clients.submit(() -> {
+                    long startedAt = System.nanoTime();
+                    boolean success = false;
+                    try {
+                        success = request.apply(index).getStatusCode().is2xxSuccessful();
+                    } catch (RuntimeException e) {
+                        // counted as an error below
+                    } finally {
+                        stats.record(System.nanoTime() - startedAt, success);
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        stats.finish();
+        return stats;
+    }
+}
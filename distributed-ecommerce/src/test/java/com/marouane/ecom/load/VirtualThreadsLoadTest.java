@@ -0,0 +1,12 @@
+package com.marouane.ecom.load;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("virtual-threads")
+class VirtualThreadsLoadTest extends ThreadModeLoadTest {
+
+    @Override
+    String threadMode() {
+        return "virtual";
+    }
+}
@@ -6,13 +6,19 @@ import com.marouane.ecom.auth.RegistrationRequest;
 import com.marouane.ecom.cart.Cart;
 import com.marouane.ecom.cart.CartRepository;
 import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.common.CheckoutMetrics;
+import com.marouane.ecom.common.QueryBudget;
 import com.marouane.ecom.inventory.Inventory;
 import com.marouane.ecom.inventory.InventoryRepository;
+import com.marouane.ecom.inventory.InventoryReservationRepository;
 import com.marouane.ecom.product.Product;
 import com.marouane.ecom.product.ProductRequest;
 import com.marouane.ecom.product.ProductStatus;
 import com.marouane.ecom.user.Role;
 import com.marouane.ecom.user.RoleRepository;
+import com.marouane.ecom.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,8 +27,13 @@ import org.springframework.http.*;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -47,6 +58,27 @@ class OrderIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private OrderRollupInitializer orderRollupInitializer;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private CheckoutMetrics checkoutMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     String jwtToken;
     Long testProductId;
 
@@ -74,6 +106,14 @@ class OrderIntegrationTest extends BaseIntegrationTest {
 
     @BeforeEach
     void setUp() {
+        // Orders reference the users deleted below
+        jdbcTemplate.execute("DELETE FROM inventory_reservations");
+        jdbcTemplate.execute("DELETE FROM order_items");
+        jdbcTemplate.execute("DELETE FROM orders");
+        jdbcTemplate.execute("DELETE FROM cart_items");
+        jdbcTemplate.execute("DELETE FROM carts");
+        jdbcTemplate.execute("DELETE FROM customer_revenue");
+        jdbcTemplate.execute("DELETE FROM daily_revenue");
         jdbcTemplate.execute("DELETE FROM _user_roles");
         jdbcTemplate.execute("DELETE FROM _user");
         jdbcTemplate.execute("DELETE FROM role");
@@ -213,7 +253,113 @@ class OrderIntegrationTest extends BaseIntegrationTest {
 
     }
 
+    @Test
+    void customerStats_shouldAggregateAllOrdersInOneQuery() {
+        for (int quantity : new int[]{2, 3}) {
+            performAuthenticatedRequest(HttpMethod.POST,
+                    "/api/cart/add/" + testProductId + "/" + quantity, null, Void.class);
+            performAuthenticatedRequest(HttpMethod.POST, "/api/orders/create", null, Order.class);
+        }
+        Integer buyerId = userRepository.findByEmail("user@gmail.com").orElseThrow().getId();
+        Integer noOrdersId = buyerId + 1000;
+
+        Map<Integer, CustomerOrderStats> stats = QueryBudget.assertMaxStatements(1, () ->
+                orderService.getStatsForUsers(List.of(buyerId, noOrdersId)));
+
+        assertThat(stats.get(buyerId).orderCount()).isEqualTo(2);
+        assertThat(stats.get(buyerId).totalSpent()).isEqualByComparingTo("249.95");
+        assertThat(stats.get(noOrdersId).orderCount()).isZero();
+        assertThat(stats.get(noOrdersId).totalSpent()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
 
+    @Test
+    void revenueRollups_shouldFollowStatusTransitions() {
+        performAuthenticatedRequest(HttpMethod.POST, "/api/cart/add/" + testProductId + "/2", null, Void.class);
+        CheckoutRequest checkout = new CheckoutRequest();
+        checkout.setCardNumber("4242424242424242");
+        ResponseEntity<Order> paid = performAuthenticatedRequest(
+                HttpMethod.POST, "/api/orders/checkout", checkout, Order.class);
+        assertThat(paid.getBody().getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(paid.getBody().getTotalAmount()).isEqualByComparingTo("99.98");
+
+        // Pending orders are not revenue
+        performAuthenticatedRequest(HttpMethod.POST, "/api/cart/add/" + testProductId + "/1", null, Void.class);
+        performAuthenticatedRequest(HttpMethod.POST, "/api/orders/create", null, Order.class);
+
+        Integer buyerId = userRepository.findByEmail("user@gmail.com").orElseThrow().getId();
+        assertRevenue(buyerId, 1, "99.98");
+
+        // A rebuild from the stored totals lands on the same numbers
+        revenueRollupService.rebuild();
+        assertRevenue(buyerId, 1, "99.98");
+
+        ResponseEntity<CustomerRevenueDto> byApi = performAuthenticatedRequest(
+                HttpMethod.GET, "/api/revenue/customers/" + buyerId, null, CustomerRevenueDto.class);
+        assertThat(byApi.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(byApi.getBody().customerId()).isEqualTo(buyerId);
+        assertThat(byApi.getBody().orderCount()).isEqualTo(1);
+        assertThat(byApi.getBody().revenue()).isEqualByComparingTo("99.98");
+    }
+
+    @Test
+    void rollupInitializer_shouldRebuildWhenOnlyDailyRevenueIsMissing() {
+        performAuthenticatedRequest(HttpMethod.POST, "/api/cart/add/" + testProductId + "/2", null, Void.class);
+        CheckoutRequest checkout = new CheckoutRequest();
+        checkout.setCardNumber("4242424242424242");
+        performAuthenticatedRequest(HttpMethod.POST, "/api/orders/checkout", checkout, Order.class);
+        Integer buyerId = userRepository.findByEmail("user@gmail.com").orElseThrow().getId();
 
+        jdbcTemplate.execute("DELETE FROM daily_revenue");
+        orderRollupInitializer.backfillAndRebuild();
 
-}
\ No newline at end of file
+        assertRevenue(buyerId, 1, "99.98");
+    }
+
+    @Test
+    void checkout_shouldRecordStageTimersLockWaitsAndActiveReservations() {
+        List<String> checkoutStages = List.of("authentication", "complete-order", "reserve", "payment");
+        Map<String, Long> before = checkoutStages.stream()
+                .collect(Collectors.toMap(Function.identity(), this::stageCount));
+        long lockWaitsBefore = lockWaitCount();
+
+        performAuthenticatedRequest(HttpMethod.POST, "/api/cart/add/" + testProductId + "/2", null, Void.class);
+        CheckoutRequest checkout = new CheckoutRequest();
+        checkout.setCardNumber("4242424242424242");
+        ResponseEntity<Order> paid = performAuthenticatedRequest(
+                HttpMethod.POST, "/api/orders/checkout", checkout, Order.class);
+        assertThat(paid.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        checkoutStages.forEach(stage ->
+                assertThat(stageCount(stage)).as(stage).isGreaterThan(before.get(stage)));
+        assertThat(lockWaitCount()).isGreaterThan(lockWaitsBefore);
+
+        long createOrderBefore = stageCount("create-order");
+        performAuthenticatedRequest(HttpMethod.POST, "/api/cart/add/" + testProductId + "/1", null, Void.class);
+        performAuthenticatedRequest(HttpMethod.POST, "/api/orders/create", null, Order.class);
+        assertThat(stageCount("create-order")).isGreaterThan(createOrderBefore);
+
+        checkoutMetrics.refreshActiveReservations();
+        assertThat(meterRegistry.get("inventory.reservations.active").gauge().value())
+                .isEqualTo((double) reservationRepository.count())
+                .isPositive();
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("checkout.stage").tag("stage", stage).timer().count();
+    }
+
+    private long lockWaitCount() {
+        return meterRegistry.get("inventory.lock.wait").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private void assertRevenue(Integer buyerId, long orders, String revenue) {
+        CustomerRevenue customerRevenue = revenueRollupService.getCustomerRevenue(buyerId).orElseThrow();
+        assertThat(customerRevenue.getOrderCount()).isEqualTo(orders);
+        assertThat(customerRevenue.getRevenue()).isEqualByComparingTo(revenue);
+
+        List<DailyRevenueTotal> today = revenueRollupService.getDailyRevenue(LocalDate.now(), LocalDate.now());
+        assertThat(today).hasSize(1);
+        assertThat(today.get(0).orderCount()).isEqualTo(orders);
+        assertThat(today.get(0).revenue()).isEqualByComparingTo(revenue);
+    }
+}
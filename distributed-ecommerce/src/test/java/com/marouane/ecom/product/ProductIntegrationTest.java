@@ -5,18 +5,29 @@ import com.marouane.ecom.auth.AuthenticationRequest;
 import com.marouane.ecom.auth.AuthenticationResponse;
 import com.marouane.ecom.auth.RegistrationRequest;
 import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.common.PageResponse;
+import com.marouane.ecom.common.QueryBudget;
+import com.marouane.ecom.inventory.InventoryRepository;
+import com.marouane.ecom.inventory.InventoryService;
+import com.marouane.ecom.inventory.ProductStock;
 import com.marouane.ecom.user.Role;
 import com.marouane.ecom.user.RoleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -38,6 +49,21 @@ class ProductIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
 
 
     String jwtToken;
@@ -64,6 +90,8 @@ class ProductIntegrationTest extends BaseIntegrationTest {
 
     @BeforeEach
     void setUp() {
+        jdbcTemplate.execute("DELETE FROM inventory_reservations");
+        jdbcTemplate.execute("DELETE FROM inventory");
         productRepository.deleteAll();
 
 
@@ -158,6 +186,17 @@ class ProductIntegrationTest extends BaseIntegrationTest {
                 .extracting(Product::getName, Product::getPrice)
                 .containsExactly("Wireless Earbuds Pro", BigDecimal.valueOf(149.99));
 
+        // the first get cached the product; the update must not be served stale
+        ResponseEntity<ProductResponse> updatedGetResponse = performAuthenticatedRequest(
+                HttpMethod.GET,
+                "/api/products/" + createdProduct.getId(),
+                null,
+                ProductResponse.class
+        );
+        assertThat(updatedGetResponse.getBody())
+                .extracting(ProductResponse::getName, ProductResponse::getPrice)
+                .containsExactly("Wireless Earbuds Pro", BigDecimal.valueOf(149.99));
+
 
         // Soft Delete
         ResponseEntity<Void> deleteResponse = performAuthenticatedRequest(
@@ -182,6 +221,180 @@ class ProductIntegrationTest extends BaseIntegrationTest {
     }
 
 
+    @Test
+    void availableProducts_shouldFilterOnAvailableStockWithAccurateTotals() {
+        Product inStock = productRepository.save(Product.builder()
+                .name("In Stock").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        Product fullyReserved = productRepository.save(Product.builder()
+                .name("Fully Reserved").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        productRepository.save(Product.builder()
+                .name("No Inventory").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        Product anotherInStock = productRepository.save(Product.builder()
+                .name("Another In Stock").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+
+        inventoryService.createInventory(inStock.getId(), 5);
+        inventoryService.createInventory(fullyReserved.getId(), 3);
+        inventoryService.reserveStock(fullyReserved.getId(), 3);
+        inventoryService.createInventory(anotherInStock.getId(), 1);
+
+        ResponseEntity<PageResponse<ProductResponse>> response = restTemplate.exchange(
+                "/api/products/available?page=0&size=1",
+                HttpMethod.GET,
+                new HttpEntity<>(getAuthHeaders()),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        PageResponse<ProductResponse> page = response.getBody();
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        assertThat(page.isLast()).isFalse();
+        assertThat(page.getContent().get(0).getStock()).isPositive();
+    }
+
+    @Test
+    void findStockByProductIdIn_shouldReturnAvailableStockForProductsWithInventory() {
+        Product stocked = productRepository.save(Product.builder()
+                .name("Stocked").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        Product unstocked = productRepository.save(Product.builder()
+                .name("Unstocked").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        inventoryService.createInventory(stocked.getId(), 7);
+        inventoryService.reserveStock(stocked.getId(), 3);
+
+        List<ProductStock> stock = QueryBudget.assertMaxStatements(1, () ->
+                inventoryRepository.findStockByProductIdIn(List.of(stocked.getId(), unstocked.getId())));
+
+        assertThat(stock).containsExactly(new ProductStock(stocked.getId(), 4));
+    }
+
+    @Test
+    void toProductResponses_shouldMapAPageWithOneStockQueryAndZeroForMissingInventory() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Mapped Product " + i).status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+            if (i > 0) {
+                inventoryService.createInventory(product.getId(), i);
+            }
+            products.add(product);
+        }
+
+        List<ProductResponse> responses = QueryBudget.assertMaxStatements(1, () ->
+                productMapper.toProductResponses(products));
+
+        assertThat(responses).extracting(ProductResponse::getId)
+                .containsExactlyElementsOf(products.stream().map(Product::getId).toList());
+        assertThat(responses).extracting(ProductResponse::getStock)
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void availableProducts_shouldDropProductOnceItsStockIsReserved() {
+        Product product = productRepository.save(Product.builder()
+                .name("Last Units").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        inventoryService.createInventory(product.getId(), 2);
+
+        assertThat(availableProductIds()).containsExactly(product.getId());
+
+        inventoryService.reserveStock(product.getId(), 2);
+
+        assertThat(availableProductIds()).isEmpty();
+    }
+
+    @Test
+    void productPage_shouldLoadStockWithoutQueryPerProduct() {
+        for (int i = 0; i < 20; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Budget Product " + i).status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+            inventoryService.createInventory(product.getId(), i + 1);
+        }
+
+        // page, count and one batched stock lookup
+        PageResponse<ProductResponse> page = QueryBudget.assertMaxStatements(3, () ->
+                productService.getAllProducts(0, 20, null, null, null, null, null, null));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent()).allSatisfy(product -> assertThat(product.getStock()).isPositive());
+    }
+
+    @Test
+    void cursorPaging_shouldWalkAllProductsWithoutOffsets() {
+        for (int i = 0; i < 5; i++) {
+            productRepository.save(Product.builder()
+                    .name("Paged " + i).status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            ResponseEntity<PageResponse<ProductResponse>> response = restTemplate.exchange(
+                    "/api/products?size=2&sortBy=name&sortDir=asc&cursor=" + cursor,
+                    HttpMethod.GET,
+                    new HttpEntity<>(getAuthHeaders()),
+                    new ParameterizedTypeReference<>() {}
+            );
+            PageResponse<ProductResponse> page = response.getBody();
+            assertThat(page.getTotalElements()).isEqualTo(-1);
+            page.getContent().forEach(product -> assertThat(seen.add(product.getId())).isTrue());
+            cursor = page.getNextCursor();
+            pages++;
+        }
+
+        assertThat(seen).hasSize(5);
+        assertThat(pages).isEqualTo(3);
+
+        ResponseEntity<String> tampered = restTemplate.exchange(
+                "/api/products?size=2&sortBy=price&sortDir=asc&cursor=" + "bm90LWEtY3Vyc29y",
+                HttpMethod.GET,
+                new HttpEntity<>(getAuthHeaders()),
+                String.class
+        );
+        assertThat(tampered.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void searchProducts_shouldMatchPrefixesAndReturnCategoryFacets() {
+        productRepository.save(Product.builder().name("Wireless Earbuds").category("Audio")
+                .description("Noise cancelling").status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        productRepository.save(Product.builder().name("Wired Headphones").category("Audio")
+                .status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+        productRepository.save(Product.builder().name("Wireless Mouse").category("Computers")
+                .status(ProductStatus.ACTIVE).price(BigDecimal.TEN).build());
+
+        ProductSearchResponse all = performAuthenticatedRequest(
+                HttpMethod.GET, "/api/products/search?q=wire", null, ProductSearchResponse.class
+        ).getBody();
+        assertThat(all.getResults().getTotalElements()).isEqualTo(3);
+
+        ProductSearchResponse wireless = performAuthenticatedRequest(
+                HttpMethod.GET, "/api/products/search?q=WIRELESS&category=Audio", null, ProductSearchResponse.class
+        ).getBody();
+        assertThat(wireless.getResults().getContent())
+                .extracting(ProductResponse::getName)
+                .containsExactly("Wireless Earbuds");
+        assertThat(wireless.getFacets()).hasSize(2);
+
+        ResponseEntity<PageResponse<ProductResponse>> listed = restTemplate.exchange(
+                "/api/products?search=noise",
+                HttpMethod.GET,
+                new HttpEntity<>(getAuthHeaders()),
+                new ParameterizedTypeReference<>() {}
+        );
+        assertThat(listed.getBody().getContent())
+                .extracting(ProductResponse::getName)
+                .containsExactly("Wireless Earbuds");
+    }
+
+    @Test
+    void searchProducts_shouldRejectNegativePageAndNonPositiveSize() {
+        for (String paging : List.of("page=-1&size=10", "page=0&size=-1", "page=0&size=0")) {
+            ResponseEntity<String> response = performAuthenticatedRequest(
+                    HttpMethod.GET, "/api/products/search?q=wire&" + paging, null, String.class);
+            assertThat(response.getStatusCode()).as(paging).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Test
     void concurrentHardDeleteShouldPreventRaceConditions() throws InterruptedException {
         // Create test product
@@ -244,7 +457,13 @@ class ProductIntegrationTest extends BaseIntegrationTest {
         assertThat(productRepository.findById(product.getId())).isEmpty();
     }
 
-
-
-
-}
\ No newline at end of file
+    private List<Long> availableProductIds() {
+        ResponseEntity<PageResponse<ProductResponse>> response = restTemplate.exchange(
+                "/api/products/available?page=0&size=10",
+                HttpMethod.GET,
+                new HttpEntity<>(getAuthHeaders()),
+                new ParameterizedTypeReference<>() {}
+        );
+        return response.getBody().getContent().stream().map(ProductResponse::getId).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package com.marouane.ecom.security;
+
+import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.common.QueryBudget;
+import com.marouane.ecom.user.Role;
+import com.marouane.ecom.user.RoleRepository;
+import com.marouane.ecom.user.User;
+import com.marouane.ecom.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// application.security.jwt.stateless-principal is on by default
+class JwtFilterIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private User user;
+
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = roleRepository.findByName("USER")
+                .orElseGet(() -> roleRepository.save(Role.builder().name("USER").build()));
+        user = userRepository.save(User.builder()
+                .firstName("first")
+                .lastName("last")
+                .email("filter-" + UUID.randomUUID() + "@gmail.com")
+                .password("not-used")
+                .roles(List.of(userRole))
+                .build());
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenWithUid_shouldAuthenticateWithoutLoadingTheUser() {
+        String token = jwtService.generateToken(uidClaim(), user);
+
+        QueryBudget.assertMaxStatements(0, () -> filter(token));
+
+        AuthenticatedUser principal = currentPrincipal();
+        assertThat(principal.id()).isEqualTo(user.getId());
+        assertThat(principal.email()).isEqualTo(user.getEmail());
+        assertThat(principal.authorities()).extracting(Object::toString).containsExactly("USER");
+        assertThat(getOrders(token).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void tokenWithoutUid_shouldFallBackToLoadingTheUser() {
+        String token = jwtService.generateToken(user);
+
+        filter(token);
+
+        assertThat(currentPrincipal().id()).isEqualTo(user.getId());
+        assertThat(getOrders(token).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void tokenWithoutUid_shouldBeRejectedOnceItsUserIsGone() {
+        String token = jwtService.generateToken(user);
+        userRepository.deleteById(user.getId());
+
+        filter(token);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(getOrders(token).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+
+    private Void filter(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        try {
+            jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    private ResponseEntity<String> getOrders(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange("/api/orders", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private AuthenticatedUser currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+
+    private Map<String, Object> uidClaim() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
+        return claims;
+    }
+}
@@ -0,0 +1,143 @@
+package com.marouane.ecom.security;
+
+import com.marouane.ecom.common.BaseIntegrationTest;
+import com.marouane.ecom.common.CacheInvalidation;
+import com.marouane.ecom.common.QueryBudget;
+import com.marouane.ecom.config.CacheConfig;
+import com.marouane.ecom.user.Role;
+import com.marouane.ecom.user.RoleRepository;
+import com.marouane.ecom.user.User;
+import com.marouane.ecom.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    private User user;
+
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = roleRepository.findByName("USER")
+                .orElseGet(() -> roleRepository.save(Role.builder().name("USER").build()));
+        user = userRepository.save(User.builder()
+                .firstName("first")
+                .lastName("last")
+                .email("jwt-" + UUID.randomUUID() + "@gmail.com")
+                .password("not-used")
+                .roles(List.of(userRole))
+                .build());
+    }
+
+    @Test
+    void verify_shouldServeTheSameTokenFromCache() {
+        String token = jwtService.generateToken(uidClaim(), user);
+
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo(user.getEmail());
+    }
+
+    @Test
+    void verify_shouldNotServeTokenFromCacheAfterItsExpiry() throws InterruptedException {
+        // exp has second precision, so leave at least a full second before it
+        String token = Jwts.builder()
+                .setClaims(uidClaim())
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 2000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                .compact();
+        Date expiresAt = jwtService.verify(token).getExpiration();
+
+        Thread.sleep(expiresAt.getTime() - System.currentTimeMillis() + 1100);
+
+        assertThatThrownBy(() -> jwtService.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void verify_shouldRejectTamperedTokenWhileTheSubjectIsCached() {
+        String token = jwtService.generateToken(uidClaim(), user);
+        jwtService.verify(token);
+        principalCache.loadUserByUsername(user.getEmail());
+
+        // Same header, subject and signature, different uid
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        String forgedPayload = payload.replace("\"uid\":" + user.getId(), "\"uid\":" + (user.getId() + 1));
+        assertThat(forgedPayload).isNotEqualTo(payload);
+        String tampered = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(forgedPayload.getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+
+        assertThatThrownBy(() -> jwtService.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void principalCache_shouldServeRepeatLoadsWithoutQueries() {
+        principalCache.loadUserByUsername(user.getEmail());
+
+        User cached = (User) QueryBudget.assertMaxStatements(0, () ->
+                principalCache.loadUserByUsername(user.getEmail()));
+
+        assertThat(cached.getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void principalCache_shouldReloadUserAfterInvalidation() {
+        principalCache.loadUserByUsername(user.getEmail());
+        jdbcTemplate.update("UPDATE _user SET first_name = ? WHERE id = ?", "renamed", user.getId());
+
+        principalCache.onInvalidation(CacheInvalidation.of(CacheConfig.USERS, user.getEmail()));
+
+        User reloaded = (User) principalCache.loadUserByUsername(user.getEmail());
+        assertThat(reloaded.getFirstName()).isEqualTo("renamed");
+    }
+
+
+    private Map<String, Object> uidClaim() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
+        return claims;
+    }
+}